@@ -0,0 +1,171 @@
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.InputMismatchException;
+
+/**
+ * Converts decimal tokens to {@link BigInteger} and {@link BigDecimal} without
+ * creating a String for them.<br>
+ * The digits are accumulated 18 at a time into longs. Up to
+ * {@value #SCHOOLBOOK_DIGITS} digits the magnitude is built in a single array of
+ * 32 bit words by multiplying with 10<sup>9</sup> and is converted to a BigInteger
+ * once. Longer digit strings are split in two at a multiple of 18 digits
+ * whose power of ten is cached, and the halves are converted recursively and
+ * joined by a single multiplication, so very long numbers take the subquadratic
+ * multiplications of BigInteger instead of the quadratic conversion of
+ * <code>new BigInteger(String)</code>.
+ */
+final class BigNumberParser {
+
+    private static final int CHUNK_DIGITS = 18, WORD_BASE = 1_000_000_000;
+    private static final int SCHOOLBOOK_DIGITS = CHUNK_DIGITS << 5;
+    /* log2(10) / 32, the number of 32 bit words per digit */
+    private static final double WORDS_PER_DIGIT = 0.10381025296523008;
+    /* 10^(18 * 2^k) by k, computed on first use; racing threads compute equal values */
+    private static final BigInteger[] POWERS = new BigInteger[32];
+
+    private BigNumberParser() {
+    }
+
+    /**
+     * Parses the token <code>b[off, off+len)</code> as a <code>BigInteger</code>
+     * with an optional minus sign.
+     *
+     * @param strict <code>true</code> to throw for malformed tokens, otherwise the
+     *               digits up to the first other byte are parsed
+     * @throws InputMismatchException if strict and the token is not an integer
+     */
+    static BigInteger parseBigInteger(byte[] b, int off, int len, boolean strict) {
+        int i = off, end = off + len;
+        boolean negative = i < end && b[i] == '-';
+        if (negative) i++;
+        int start = i;
+        while (i < end && b[i] >= '0' && b[i] <= '9') i++;
+        if (strict && (i != end || i == start)) throw new InputMismatchException();
+        BigInteger magnitude = magnitude(b, start, i - start);
+        return negative ? magnitude.negate() : magnitude;
+    }
+
+    /**
+     * Parses the token <code>b[off, off+len)</code> as a <code>BigDecimal</code>
+     * of the format read by <tt>nextDoubleStrict()</tt>, except for NaN and Infinity.
+     * The scale of the value is the number of fraction digits less the exponent.
+     *
+     * @param strict <code>true</code> to throw for malformed tokens, otherwise the
+     *               longest well formed prefix of the token is parsed
+     * @throws InputMismatchException
+     *         if strict and the token is not a decimal number, or the scale does not fit an int
+     */
+    static BigDecimal parseBigDecimal(byte[] b, int off, int len, boolean strict) {
+        int i = off, end = off + len;
+        boolean negative = false;
+        if (i < end && (b[i] == '-' || b[i] == '+')) negative = b[i++] == '-';
+        int intStart = i;
+        while (i < end && b[i] >= '0' && b[i] <= '9') i++;
+        int intEnd = i, fractionStart = i;
+        if (i < end && b[i] == '.') {
+            fractionStart = ++i;
+            while (i < end && b[i] >= '0' && b[i] <= '9') i++;
+        }
+        int fractionEnd = Math.max(i, fractionStart);
+        int digits = intEnd - intStart + fractionEnd - fractionStart;
+        if (digits == 0) {
+            if (strict) throw new InputMismatchException();
+            return BigDecimal.ZERO;
+        }
+        long scale = fractionEnd - fractionStart;
+        if (i < end && (b[i] == 'e' || b[i] == 'E')) {
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (j < end && (b[j] == '-' || b[j] == '+')) negativeExponent = b[j++] == '-';
+            long exponent = 0;
+            int exponentStart = j;
+            for (; j < end && b[j] >= '0' && b[j] <= '9'; j++) {
+                if (exponent <= Integer.MAX_VALUE) exponent = exponent * 10 + b[j] - '0';
+            }
+            if (j > exponentStart) {
+                scale += negativeExponent ? exponent : -exponent;
+                i = j;
+            }
+        }
+        if (strict && i != end) throw new InputMismatchException();
+        if (scale != (int) scale) throw new InputMismatchException();
+
+        if (digits <= CHUNK_DIGITS) {
+            long unscaled = chunk(b, intStart, intEnd - intStart);
+            for (int k = fractionStart; k < fractionEnd; k++) unscaled = unscaled * 10 + b[k] - '0';
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, (int) scale);
+        }
+        BigInteger unscaled;
+        if (fractionEnd == fractionStart) unscaled = magnitude(b, intStart, digits);
+        else {
+            byte[] all = new byte[digits];
+            System.arraycopy(b, intStart, all, 0, intEnd - intStart);
+            System.arraycopy(b, fractionStart, all, intEnd - intStart, fractionEnd - fractionStart);
+            unscaled = magnitude(all, 0, digits);
+        }
+        return new BigDecimal(negative ? unscaled.negate() : unscaled, (int) scale);
+    }
+
+    /* the value of the digits b[off, off+len) */
+    static BigInteger magnitude(byte[] b, int off, int len) {
+        if (len <= CHUNK_DIGITS) return BigInteger.valueOf(chunk(b, off, len));
+        if (len <= SCHOOLBOOK_DIGITS) return schoolbook(b, off, len);
+        // the low part is the largest multiple of 18 digits by a power of two below len
+        int k = 31 - Integer.numberOfLeadingZeros((len - 1) / CHUNK_DIGITS);
+        int low = CHUNK_DIGITS << k;
+        return magnitude(b, off, len - low).multiply(power(k)).add(magnitude(b, off + len - low, low));
+    }
+
+    /* 10^(18 * 2^k) */
+    private static BigInteger power(int k) {
+        BigInteger power = POWERS[k];
+        if (power == null) {
+            power = k == 0 ? BigInteger.TEN.pow(CHUNK_DIGITS) : power(k - 1).multiply(power(k - 1));
+            POWERS[k] = power;
+        }
+        return power;
+    }
+
+    /* the value of up to 18 digits */
+    private static long chunk(byte[] b, int off, int len) {
+        long value = 0;
+        for (int end = off + len; off < end; off++) value = value * 10 + b[off] - '0';
+        return value;
+    }
+
+    /* the value of the digits, built in an array of little-endian 32 bit words */
+    private static BigInteger schoolbook(byte[] b, int off, int len) {
+        int[] words = new int[(int) (len * WORDS_PER_DIGIT) + 2];
+        int head = len - (len - 1) / CHUNK_DIGITS * CHUNK_DIGITS;
+        long value = chunk(b, off, head);
+        words[0] = (int) value;
+        words[1] = (int) (value >>> 32);
+        int size = words[1] == 0 ? 1 : 2;
+        for (int i = off + head, end = off + len; i < end; i += CHUNK_DIGITS) {
+            long chunk = chunk(b, i, CHUNK_DIGITS);
+            size = multiplyAdd(words, size, (int) (chunk / WORD_BASE));
+            size = multiplyAdd(words, size, (int) (chunk % WORD_BASE));
+        }
+        byte[] bytes = new byte[size << 2];
+        for (int w = 0, p = bytes.length - 1; w < size; w++, p -= 4) {
+            int word = words[w];
+            bytes[p] = (byte) word;
+            bytes[p - 1] = (byte) (word >>> 8);
+            bytes[p - 2] = (byte) (word >>> 16);
+            bytes[p - 3] = (byte) (word >>> 24);
+        }
+        return new BigInteger(1, bytes);
+    }
+
+    /* words = words * 10^9 + add, returns the new number of words */
+    private static int multiplyAdd(int[] words, int size, int add) {
+        long carry = add;
+        for (int w = 0; w < size; w++) {
+            long product = (words[w] & 0xFFFFFFFFL) * WORD_BASE + carry;
+            words[w] = (int) product;
+            carry = product >>> 32;
+        }
+        if (carry != 0) words[size++] = (int) carry;
+        return size;
+    }
+}
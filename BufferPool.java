@@ -0,0 +1,73 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded pool of scanner buffers shared by short-lived {@link FastScanner} objects,
+ * see {@link FastScanner.Builder#bufferPool(BufferPool)}. A pooled scanner takes its
+ * buffer from the pool and returns it on <tt>close()</tt>, so creating many scanners
+ * over small inputs does not allocate a buffer per scanner.<br>
+ * The buffers are kept by power of two size from 1 KB to 1 MB in slots striped by
+ * thread, so threads rarely contend for the same slot. Taking and returning a buffer
+ * is a single compare and set; the pool never blocks and drops the buffers it has no
+ * free slot for.
+ */
+public final class BufferPool {
+
+    private static final int MIN_SHIFT = 10, MAX_SHIFT = 20;
+    private static final int SIZE_CLASSES = MAX_SHIFT - MIN_SHIFT + 1;
+    private static final BufferPool SHARED = new BufferPool(4);
+
+    private final AtomicReferenceArray<byte[]> slots;
+    private final int stripeMask, buffersPerStripe;
+
+    /**
+     * Constructs an empty pool with one stripe per available processor.
+     *
+     * @param buffersPerStripe number of buffers of every size kept by each stripe
+     */
+    public BufferPool(int buffersPerStripe) {
+        if (buffersPerStripe <= 0) throw new IllegalArgumentException("Invalid number of buffers: " + buffersPerStripe);
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+        this.stripeMask = stripes - 1;
+        this.buffersPerStripe = buffersPerStripe;
+        this.slots = new AtomicReferenceArray<>(stripes * SIZE_CLASSES * buffersPerStripe);
+    }
+
+    /**
+     * @return the pool shared by all scanners which use the default pool
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /* returns a buffer of at least the size, rounded up to a power of two */
+    byte[] acquire(int size) {
+        int shift = shift(size);
+        if (shift > MAX_SHIFT) return new byte[size];
+        int first = firstSlot(shift);
+        for (int i = first, end = first + buffersPerStripe; i < end; i++) {
+            byte[] buffer = slots.get(i);
+            if (buffer != null && slots.compareAndSet(i, buffer, null)) return buffer;
+        }
+        return new byte[1 << shift];
+    }
+
+    /* returns the buffer to the pool, or drops it if it has no free slot or an odd size */
+    void release(byte[] buffer) {
+        int shift = shift(buffer.length);
+        if (shift > MAX_SHIFT || buffer.length != 1 << shift) return;
+        int first = firstSlot(shift);
+        for (int i = first, end = first + buffersPerStripe; i < end; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, buffer)) return;
+        }
+    }
+
+    private static int shift(int size) {
+        return Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(size - 1));
+    }
+
+    private int firstSlot(int shift) {
+        long id = Thread.currentThread().getId();
+        int stripe = (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+        return (stripe * SIZE_CLASSES + shift - MIN_SHIFT) * buffersPerStripe;
+    }
+}
@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An InputStream over a {@link ReadableByteChannel} such as a socket, a pipe or a
+ * file channel. The channel reads into a direct ByteBuffer taken from a small pool,
+ * so the bytes are copied once from the native buffer into the buffer of the scanner,
+ * without the locking and the extra copy of a {@link java.io.BufferedInputStream}.
+ */
+final class ChannelInputStream extends InputStream {
+
+    static final int DIRECT_BUFFER_SIZE = 1<<16;
+    /* number of released direct buffers kept for reuse */
+    private static final int POOL_SIZE = 16;
+    private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer direct;
+
+    /**
+     * Creates a stream over the channel, which must be in blocking mode.
+     *
+     * @throws IllegalBlockingModeException if the channel is in non-blocking mode
+     */
+    ChannelInputStream(ReadableByteChannel channel) {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking())
+            throw new IllegalBlockingModeException();
+        this.channel = channel;
+        this.direct = acquire();
+        this.direct.limit(0);
+    }
+
+    private static ByteBuffer acquire() {
+        ByteBuffer buffer = POOL.poll();
+        if (buffer == null) return ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        POOLED.decrementAndGet();
+        return buffer;
+    }
+
+    private static void release(ByteBuffer buffer) {
+        if (POOLED.incrementAndGet() > POOL_SIZE) {
+            POOLED.decrementAndGet();
+            return;
+        }
+        POOL.offer(buffer);
+    }
+
+    /* reads from the channel if the direct buffer is consumed, false at the end of input */
+    private boolean ensureBytes() throws IOException {
+        if (direct == null) throw new IOException("Stream closed");
+        if (direct.hasRemaining()) return true;
+        direct.clear();
+        int n;
+        do n = channel.read(direct);
+        while (n == 0);
+        direct.flip();
+        return n > 0;
+    }
+
+    /**
+     * Returns the channel if it is a file channel, otherwise <code>null</code>.
+     */
+    FileChannel fileChannel() {
+        return channel instanceof FileChannel ? (FileChannel) channel : null;
+    }
+
+    /**
+     * Returns the number of bytes read from the channel which are not yet consumed.
+     */
+    int buffered() {
+        return direct == null ? 0 : direct.remaining();
+    }
+
+    /**
+     * Moves a file channel to the position, discarding the buffered bytes.
+     */
+    void seek(long position) throws IOException {
+        if (direct == null) throw new IOException("Stream closed");
+        direct.limit(0);
+        fileChannel().position(position);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureBytes()) return -1;
+        return direct.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!ensureBytes()) return -1;
+        int n = Math.min(len, direct.remaining());
+        direct.get(b, off, n);
+        return n;
+    }
+
+    /**
+     * Skips the bytes by moving the position of a file channel, other channels
+     * are read into the direct buffer and discarded.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        if (direct == null) throw new IOException("Stream closed");
+        int buffered = (int) Math.min(n, direct.remaining());
+        direct.position(direct.position() + buffered);
+        long skipped = buffered;
+        FileChannel file = fileChannel();
+        if (file != null) {
+            long position = file.position();
+            long target = position + Math.min(n - skipped, Math.max(file.size() - position, 0));
+            if (target > position) {
+                file.position(target);
+                skipped += target - position;
+            }
+            return skipped;
+        }
+        while (skipped < n && ensureBytes()) {
+            int k = (int) Math.min(n - skipped, direct.remaining());
+            direct.position(direct.position() + k);
+            skipped += k;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffered();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (direct == null) return;
+        release(direct);
+        direct = null;
+        channel.close();
+    }
+}
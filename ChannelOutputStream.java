@@ -0,0 +1,52 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An OutputStream over a {@link WritableByteChannel} such as a socket, a pipe or a
+ * file channel. The buffer of the writer is wrapped once and written to the channel
+ * without the locking and the extra copy of a {@link java.io.BufferedOutputStream}.
+ */
+final class ChannelOutputStream extends OutputStream {
+
+    private final WritableByteChannel channel;
+    /* the last array written, wrapped for the channel */
+    private byte[] wrappedArray;
+    private ByteBuffer wrapped;
+
+    /**
+     * Creates a stream over the channel, which must be in blocking mode.
+     *
+     * @throws IllegalBlockingModeException if the channel is in non-blocking mode
+     */
+    ChannelOutputStream(WritableByteChannel channel) {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking())
+            throw new IllegalBlockingModeException();
+        this.channel = channel;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (wrappedArray != b) {
+            wrapped = ByteBuffer.wrap(b);
+            wrappedArray = b;
+        }
+        wrapped.limit(off + len).position(off);
+        while (wrapped.hasRemaining()) channel.write(wrapped);
+    }
+
+    @Override
+    public void close() throws IOException {
+        wrappedArray = null;
+        wrapped = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,239 @@
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A batch of delimited records stored by column, filled by
+ * {@link DelimitedReader#readBatch(ColumnBatch)}.<br>
+ * Numeric columns are stored in primitive arrays and text columns in a single byte
+ * array per column, so loading a batch creates no objects per field. Null fields
+ * are recorded in a bitmap per column and hold <code>0</code>, <code>NaN</code> or
+ * an empty token in the value arrays.
+ *
+ * <pre>{@code
+ *  ColumnBatch batch = new ColumnBatch(4096, Type.LONG, Type.TOKEN, Type.DOUBLE);
+ *  while (reader.readBatch(batch) > 0) {
+ *      long[] ids = batch.longs(0);
+ *      double[] prices = batch.doubles(2);
+ *      ...
+ *  }
+ * }</pre>
+ */
+public final class ColumnBatch {
+
+    /**
+     * The type of a column.
+     */
+    public enum Type {
+        /** an int column, validated like <tt>FastScanner.nextIntStrict()</tt> */
+        INT,
+        /** a long column, validated like <tt>FastScanner.nextLongStrict()</tt> */
+        LONG,
+        /** a double column, validated like <tt>FastScanner.nextDoubleStrict()</tt> */
+        DOUBLE,
+        /** a text column, read as {@link TokenView} or String */
+        TOKEN,
+        /** a column which is not stored */
+        SKIP
+    }
+
+    private final Type[] types;
+    private final int capacity;
+    private int size;
+    /* int[], long[], double[] or byte[] values per column, null for skipped columns */
+    private final Object[] values;
+    /* end offsets of the tokens in the byte[] values of the token columns */
+    private final int[][] tokenEnds;
+    private final long[][] nulls;
+    /* charset of the token columns, the charset of the scanner which read the batch */
+    private Charset charset = StandardCharsets.UTF_8;
+
+    /**
+     * Constructs a batch of the given number of records with one column per type.
+     *
+     * @param capacity maximum number of records in the batch
+     * @param types    type of every column of the records, extra fields of a record are ignored
+     */
+    public ColumnBatch(int capacity, @NotNull Type... types) {
+        if (capacity <= 0) throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        this.types = types.clone();
+        this.capacity = capacity;
+        values = new Object[types.length];
+        tokenEnds = new int[types.length][];
+        nulls = new long[types.length][];
+        for (int c = 0; c < types.length; c++) {
+            switch (Objects.requireNonNull(types[c], "Type cannot be null")) {
+                case INT: values[c] = new int[capacity]; break;
+                case LONG: values[c] = new long[capacity]; break;
+                case DOUBLE: values[c] = new double[capacity]; break;
+                case TOKEN:
+                    values[c] = new byte[capacity * 8];
+                    tokenEnds[c] = new int[capacity];
+                    break;
+                default: continue;
+            }
+            nulls[c] = new long[(capacity + 63) >>> 6];
+        }
+    }
+
+    /**
+     * @return the maximum number of records in the batch
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of records read into the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of columns
+     */
+    public int columnCount() {
+        return types.length;
+    }
+
+    /**
+     * @param column index of the column
+     * @return the type of the column
+     */
+    public Type type(int column) {
+        return types[column];
+    }
+
+    /**
+     * Returns the values of an {@link Type#INT INT} column, valid up to {@link #size()}.
+     *
+     * @param column index of the column
+     * @throws IllegalArgumentException if the column is not an INT column
+     */
+    public int[] ints(int column) {
+        return (int[]) column(column, Type.INT);
+    }
+
+    /**
+     * Returns the values of a {@link Type#LONG LONG} column, valid up to {@link #size()}.
+     *
+     * @param column index of the column
+     * @throws IllegalArgumentException if the column is not a LONG column
+     */
+    public long[] longs(int column) {
+        return (long[]) column(column, Type.LONG);
+    }
+
+    /**
+     * Returns the values of a {@link Type#DOUBLE DOUBLE} column, valid up to {@link #size()}.
+     *
+     * @param column index of the column
+     * @throws IllegalArgumentException if the column is not a DOUBLE column
+     */
+    public double[] doubles(int column) {
+        return (double[]) column(column, Type.DOUBLE);
+    }
+
+    /**
+     * Points the view to the field of a {@link Type#TOKEN TOKEN} column without copying
+     * it. The view is valid until the batch is read again.
+     *
+     * @param column index of the column
+     * @param row    index of the record in the batch
+     * @param view   the view to point to the field
+     * @return the view
+     * @throws IllegalArgumentException if the column is not a TOKEN column
+     */
+    public TokenView token(int column, int row, @NotNull TokenView view) {
+        byte[] bytes = (byte[]) column(column, Type.TOKEN);
+        checkRow(row);
+        int[] ends = tokenEnds[column];
+        int start = row == 0 ? 0 : ends[row - 1];
+        view.set(bytes, start, ends[row] - start);
+        return view;
+    }
+
+    /**
+     * Returns the field of a {@link Type#TOKEN TOKEN} column decoded with the charset
+     * of the scanner which read the batch, see {@link FastScanner#useCharset(Charset)}.
+     *
+     * @param column index of the column
+     * @param row    index of the record in the batch
+     * @return the field, or <code>null</code> if the field is null
+     * @throws IllegalArgumentException if the column is not a TOKEN column
+     */
+    public String string(int column, int row) {
+        byte[] bytes = (byte[]) column(column, Type.TOKEN);
+        checkRow(row);
+        if (isNull(column, row)) return null;
+        int[] ends = tokenEnds[column];
+        int start = row == 0 ? 0 : ends[row - 1];
+        return new String(bytes, start, ends[row] - start, charset);
+    }
+
+    /* sets the charset of the token columns, called by the reader filling the batch */
+    void charset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Returns whether the field was empty or the null value of the reader.
+     *
+     * @param column index of the column
+     * @param row    index of the record in the batch
+     * @return <code>true</code> if the field is null, always <code>false</code> for skipped columns
+     */
+    public boolean isNull(int column, int row) {
+        checkRow(row);
+        long[] bits = nulls[column];
+        return bits != null && (bits[row >>> 6] & 1L << row) != 0;
+    }
+
+    private Object column(int column, Type type) {
+        if (types[column] != type) throw new IllegalArgumentException("Column " + column + " is " + types[column]);
+        return values[column];
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException(String.valueOf(row));
+    }
+
+    /* empties the batch before it is read again */
+    void clear() {
+        size = 0;
+        for (long[] bits : nulls) if (bits != null) Arrays.fill(bits, 0);
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    Object values(int column) {
+        return values[column];
+    }
+
+    /* stores the null field and the default value of the column */
+    void setNull(int column, int row) {
+        switch (types[column]) {
+            case INT: ((int[]) values[column])[row] = 0; break;
+            case LONG: ((long[]) values[column])[row] = 0; break;
+            case DOUBLE: ((double[]) values[column])[row] = Double.NaN; break;
+            case TOKEN: appendToken(column, row, null, 0, 0); break;
+            default: return;
+        }
+        nulls[column][row >>> 6] |= 1L << row;
+    }
+
+    /* appends the token of the row, rows are appended in order */
+    void appendToken(int column, int row, byte[] src, int off, int len) {
+        byte[] bytes = (byte[]) values[column];
+        int[] ends = tokenEnds[column];
+        int start = row == 0 ? 0 : ends[row - 1];
+        if (start + len > bytes.length)
+            values[column] = bytes = Arrays.copyOf(bytes, Math.max(start + len, bytes.length << 1));
+        if (len > 0) System.arraycopy(src, off, bytes, start, len);
+        ends[row] = start + len;
+    }
+}
@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Detects compressed input from its magic bytes and opens the decompressing streams,
+ * see {@link FastScanner.Builder#decompress(boolean)}.<br>
+ * Recognized are gzip files, including files of several concatenated members, zlib
+ * streams and zip files, whose entries are read one after another separated by a
+ * line feed.
+ */
+final class CompressedInput {
+
+    /** The compression of an input. */
+    enum Format {
+        NONE, GZIP, ZLIB, ZIP
+    }
+
+    static final int INFLATE_BUFFER_SIZE = 1<<16;
+    /* the magic bytes read to detect the format */
+    private static final int MAGIC_LENGTH = 4;
+
+    /* daemon threads for decompression when the builder has no thread factory */
+    static final ThreadFactory THREADS = new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "fastscanner-inflate-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private CompressedInput() {
+    }
+
+    /* the format of an input starting with the n bytes of head */
+    static Format detect(byte[] head, int n) {
+        int b0 = n > 0 ? head[0] & 0xFF : -1, b1 = n > 1 ? head[1] & 0xFF : -1;
+        if (b0 == 0x1F && b1 == 0x8B) return Format.GZIP;
+        if (n >= 4 && b0 == 'P' && b1 == 'K' && head[2] == 3 && head[3] == 4) return Format.ZIP;
+        // zlib headers of the default, fastest and best compression, the others are printable text
+        if (b0 == 0x78 && (b1 == 0x01 || b1 == 0x9C || b1 == 0xDA)) return Format.ZLIB;
+        return Format.NONE;
+    }
+
+    /* the format of the file read by the channel from its current position, which is not moved */
+    static Format detect(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(MAGIC_LENGTH);
+        long position = channel.position();
+        while (head.hasRemaining() && channel.read(head, position + head.position()) > 0) ;
+        return detect(head.array(), head.position());
+    }
+
+    /* a stream which gives the magic bytes of the stream back after detecting its format */
+    static PushbackInputStream peekable(InputStream in) {
+        return new PushbackInputStream(in, MAGIC_LENGTH);
+    }
+
+    static Format detect(PushbackInputStream in) throws IOException {
+        byte[] head = new byte[MAGIC_LENGTH];
+        int n = 0, k;
+        while (n < head.length && (k = in.read(head, n, head.length - n)) > 0) n += k;
+        if (n > 0) in.unread(head, 0, n);
+        return detect(head, n);
+    }
+
+    /* the decompressed stream of a compressed input */
+    static InputStream inflate(InputStream in, Format format) throws IOException {
+        switch (format) {
+            case GZIP: return new GZIPInputStream(in, INFLATE_BUFFER_SIZE);
+            case ZLIB: return new InflaterInputStream(in, new Inflater(), INFLATE_BUFFER_SIZE);
+            case ZIP: return new ZipEntries(new ZipInputStream(in));
+            default: return in;
+        }
+    }
+
+    /* the file entries of a zip stream one after another, separated by a line feed */
+    private static final class ZipEntries extends InputStream {
+
+        private final ZipInputStream zip;
+        private boolean open;
+
+        ZipEntries(ZipInputStream zip) throws IOException {
+            this.zip = zip;
+            this.open = nextEntry();
+        }
+
+        private boolean nextEntry() throws IOException {
+            ZipEntry entry;
+            do entry = zip.getNextEntry();
+            while (entry != null && entry.isDirectory());
+            return entry != null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!open) return -1;
+            int n = zip.read(b, off, len);
+            if (n > 0) return n;
+            if (!(open = nextEntry())) return -1;
+            b[off] = '\n';
+            return 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            zip.close();
+        }
+    }
+}
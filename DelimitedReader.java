@@ -0,0 +1,244 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads delimited records, such as CSV or TSV files, from a {@link FastScanner}
+ * straight into the primitive columns of a {@link ColumnBatch}.<br>
+ * Fields are separated by a configurable delimiter and records by <code>\n</code>,
+ * <code>\r\n</code> or <code>\r</code>. Fields may be quoted, a quoted field can hold
+ * delimiters and line breaks and a doubled quote stands for a quote, as in RFC 4180.
+ * Empty fields, and fields equal to the null value of the reader, are null. Missing
+ * trailing fields of a record are null and extra fields are ignored. Blank lines
+ * are skipped. Spaces around numeric fields are ignored.
+ *
+ * <pre>{@code
+ *  DelimitedReader reader = new DelimitedReader(new FastScanner(path), '\t', '"', "\\N");
+ *  String[] header = reader.nextRecord();
+ *  ColumnBatch batch = new ColumnBatch(4096, Type.INT, Type.DOUBLE, Type.TOKEN);
+ *  while (reader.readBatch(batch) > 0) process(batch);
+ * }</pre>
+ */
+public class DelimitedReader implements Closeable {
+
+    /** Quote character which disables quoting. */
+    public static final char NO_QUOTE = 0;
+
+    private final FastScanner scanner;
+    private final int delimiter, quote;
+    private final String nullValue;
+    /* the null value encoded with the charset of the scanner, which may change between records */
+    private byte[] nullBytes;
+    private Charset nullCharset;
+    private final TokenView field = new TokenView();
+    private long records;
+
+    /**
+     * Constructs a reader of comma separated records with <code>"</code> quotes
+     * in which only empty fields are null.
+     *
+     * @param scanner scanner to read the records from
+     */
+    public DelimitedReader(@NotNull FastScanner scanner) {
+        this(scanner, ',', '"', null);
+    }
+
+    /**
+     * Constructs a reader of delimited records.
+     *
+     * @param scanner   scanner to read the records from
+     * @param delimiter ASCII character separating the fields, such as <code>','</code>,
+     *                  <code>'\t'</code>, <code>';'</code> or <code>'|'</code>
+     * @param quote     ASCII character quoting the fields, or {@link #NO_QUOTE}
+     * @param nullValue unquoted field value which stands for null, such as <code>"NA"</code>
+     *                  or <code>"\\N"</code>, or <code>null</code> if only empty fields are null
+     * @throws IllegalArgumentException if the delimiter or the quote is not ASCII,
+     *                                  is a line break, or they are equal
+     */
+    public DelimitedReader(@NotNull FastScanner scanner, char delimiter, char quote, String nullValue) {
+        this.scanner = Objects.requireNonNull(scanner, "Scanner cannot be null");
+        if (delimiter == 0 || delimiter >= 0x80 || delimiter == '\n' || delimiter == '\r')
+            throw new IllegalArgumentException("Invalid delimiter: " + (int) delimiter);
+        if (quote >= 0x80 || quote == '\n' || quote == '\r' || quote == delimiter)
+            throw new IllegalArgumentException("Invalid quote: " + (int) quote);
+        this.delimiter = delimiter;
+        this.quote = quote == NO_QUOTE ? 0x100 : quote;
+        this.nullValue = nullValue;
+    }
+
+    /**
+     * Returns the number of records read or skipped so far, which is the
+     * number of the last record read counting from 1.
+     *
+     * @return the number of records read
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Reads records into the batch until it is full or the end of input is reached,
+     * replacing the records of the previous call.
+     *
+     * @param batch batch to read the records into
+     * @return the number of records read, 0 at the end of input
+     * @throws InputMismatchException
+     *         if a field of a numeric column is not a valid number of the column type
+     * @throws IOException if i/o error occurs
+     */
+    public int readBatch(@NotNull ColumnBatch batch) throws IOException {
+        batch.clear();
+        batch.charset(scanner.charset());
+        int rows = 0, columns = batch.columnCount();
+        while (rows < batch.capacity()) {
+            int end = firstField();
+            if (end == FastScanner.INPUT_END) break;
+            records++;
+            int c = 0;
+            while (true) {
+                if (c < columns) store(batch, c, rows, (end & FastScanner.QUOTED) != 0);
+                c++;
+                if ((end & FastScanner.RECORD_END) != 0) break;
+                end = nextField();
+            }
+            for (; c < columns; c++) batch.setNull(c, rows);
+            batch.setSize(++rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the next record as Strings, for example the header of the file.
+     *
+     * @return the fields of the record, null fields as <code>null</code>, or
+     *         <code>null</code> at the end of input
+     * @throws IOException if i/o error occurs
+     */
+    public String[] nextRecord() throws IOException {
+        int end = firstField();
+        if (end == FastScanner.INPUT_END) return null;
+        records++;
+        List<String> fields = new ArrayList<>();
+        while (true) {
+            fields.add(isNull((end & FastScanner.QUOTED) != 0) ? null : scanner.decode(field));
+            if ((end & FastScanner.RECORD_END) != 0) break;
+            end = nextField();
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Skips the next record.
+     *
+     * @return <code>false</code> if the end of input is reached
+     * @throws IOException if i/o error occurs
+     */
+    public boolean skipRecord() throws IOException {
+        int end = firstField();
+        if (end == FastScanner.INPUT_END) return false;
+        records++;
+        while ((end & FastScanner.RECORD_END) == 0) end = nextField();
+        return true;
+    }
+
+    /**
+     * Closes the scanner.
+     *
+     * @throws IOException if i/o error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        scanner.close();
+    }
+
+    /* reads the first field of the next record which is not a blank line */
+    private int firstField() throws IOException {
+        int end;
+        do end = scanner.scanField(field, delimiter, quote);
+        while (end == FastScanner.RECORD_END && field.length() == 0);
+        return end;
+    }
+
+    /* reads the field after a delimiter, a delimiter at the end of input ends an empty field */
+    private int nextField() throws IOException {
+        int end = scanner.scanField(field, delimiter, quote);
+        if (end != FastScanner.INPUT_END) return end;
+        field.clearSpill();
+        return FastScanner.RECORD_END;
+    }
+
+    /* whether the field is empty or the null value, quoted fields are never null */
+    private boolean isNull(boolean quoted) {
+        if (quoted) return false;
+        return field.length() == 0 || nullValue != null && field.contentEquals(nullBytes());
+    }
+
+    private byte[] nullBytes() {
+        Charset charset = scanner.charset();
+        if (charset != nullCharset) {
+            nullBytes = nullValue.getBytes(charset);
+            nullCharset = charset;
+        }
+        return nullBytes;
+    }
+
+    private void store(ColumnBatch batch, int c, int row, boolean quoted) {
+        ColumnBatch.Type type = batch.type(c);
+        if (type == ColumnBatch.Type.SKIP) return;
+        if (isNull(quoted) || type != ColumnBatch.Type.TOKEN && isBlank()) {
+            batch.setNull(c, row);
+            return;
+        }
+        byte[] b = field.array();
+        int off = field.offset(), len = field.length();
+        try {
+            switch (type) {
+                case INT:
+                    ((int[]) batch.values(c))[row] = (int) parseInteger(b, off, len, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                    break;
+                case LONG:
+                    ((long[]) batch.values(c))[row] = parseInteger(b, off, len, Long.MIN_VALUE, Long.MAX_VALUE);
+                    break;
+                case DOUBLE:
+                    while (b[off] == ' ') { off++; len--; }
+                    while (b[off + len - 1] == ' ') len--;
+                    ((double[]) batch.values(c))[row] = DoubleParser.parseDouble(b, off, len, true);
+                    break;
+                default:
+                    batch.appendToken(c, row, b, off, len);
+            }
+        } catch (InputMismatchException e) {
+            throw new InputMismatchException("Invalid " + type + " in record " + records + ", column " + (c + 1)
+                    + ": " + field);
+        }
+    }
+
+    /* whether the field holds only spaces, which is null for numeric columns */
+    private boolean isBlank() {
+        for (int i = 0; i < field.length(); i++) if (field.byteAt(i) != ' ') return false;
+        return true;
+    }
+
+    /* parses the integer in b[off, off+len) which must lie in [min, max], ignoring spaces around it */
+    private static long parseInteger(byte[] b, int off, int len, long min, long max) {
+        int i = off, end = off + len;
+        while (b[i] == ' ') i++;
+        while (b[end - 1] == ' ') end--;
+        boolean negative = b[i] == '-';
+        if (negative && ++i == end) throw new InputMismatchException();
+        long limit = negative ? min : -max, multiplyLimit = limit / 10;
+        long value = 0;
+        for (; i < end; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9 || value < multiplyLimit) throw new InputMismatchException();
+            value *= 10;
+            if (value < limit + d) throw new InputMismatchException();
+            value -= d;
+        }
+        return negative ? value : -value;
+    }
+}
@@ -0,0 +1,251 @@
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+
+/**
+ * Converts decimal tokens to correctly rounded <code>double</code> and <code>float</code>
+ * values, bit identical to {@link Double#parseDouble(String)} and {@link Float#parseFloat(String)}.<br>
+ * The token is scanned once into a 64-bit decimal significand and a power of ten. Exact
+ * cases are converted with a single floating point multiplication or division (Clinger's
+ * fast path), the other cases with the Eisel-Lemire algorithm which multiplies the
+ * significand by a 128-bit approximation of the power of five. In the rare cases the
+ * algorithm cannot decide the rounding, or the significand has more than 19 digits, the
+ * token is handed to the slow path of the JDK.<br>
+ * The accepted format is an optional sign followed by <code>NaN</code>,
+ * <code>Infinity</code> or a decimal number with an optional exponent, as in
+ * <code>-12</code>, <code>1.5</code>, <code>.5</code>, <code>2.</code> or <code>6.02e23</code>.
+ */
+final class DoubleParser {
+
+    private static final int SMALLEST_POWER = -342, LARGEST_POWER = 308;
+    private static final int FLOAT_SMALLEST_POWER = -65, FLOAT_LARGEST_POWER = 38;
+    private static final int MAX_DIGITS = 19;
+    /* how malformed tokens are handled: parsed as their longest well formed prefix, thrown for, or returned as INVALID */
+    private static final int LENIENT = 0, STRICT = 1, CHECKED = 2;
+    /* the bits returned for a malformed token in checked mode, a NaN which no token parses to */
+    static final long INVALID = 0x7FF0_0000_0000_0BADL;
+
+    /* 128-bit significands of the powers of five, normalised to have the top bit set */
+    private static final long[] POW5_HIGH = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+    private static final long[] POW5_LOW = new long[POW5_HIGH.length];
+
+    private static final double[] DOUBLE_POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final float[] FLOAT_POW10 = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+    static {
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128), mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+            BigInteger c;
+            if (q >= 0) {
+                c = BigInteger.valueOf(5).pow(q);
+                int shift = 128 - c.bitLength();
+                c = shift >= 0 ? c.shiftLeft(shift) : c.shiftRight(-shift);
+            } else {
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0) c = c.shiftRight(1);
+            }
+            POW5_HIGH[q - SMALLEST_POWER] = c.shiftRight(64).longValue();
+            POW5_LOW[q - SMALLEST_POWER] = c.and(mask64).longValue();
+        }
+    }
+
+    private DoubleParser() {
+    }
+
+    /**
+     * Parses the token <code>b[off, off+len)</code> as a <code>double</code>.
+     *
+     * @param strict <code>true</code> to throw for malformed tokens, otherwise the
+     *               longest well formed prefix of the token is parsed
+     * @throws InputMismatchException if strict and the token is not a decimal number
+     */
+    static double parseDouble(byte[] b, int off, int len, boolean strict) {
+        return Double.longBitsToDouble(parse(b, off, len, strict ? STRICT : LENIENT, false));
+    }
+
+    /**
+     * Parses the token <code>b[off, off+len)</code> as a <code>double</code> like
+     * {@link #parseDouble(byte[], int, int, boolean)} in strict mode, without throwing.
+     *
+     * @return the bits of the double, or {@link #INVALID} if the token is not a decimal number
+     */
+    static long parseDoubleChecked(byte[] b, int off, int len) {
+        return parse(b, off, len, CHECKED, false);
+    }
+
+    /**
+     * Parses the token <code>b[off, off+len)</code> as a <code>float</code>,
+     * rounding the decimal value directly to <code>float</code>.
+     *
+     * @param strict <code>true</code> to throw for malformed tokens
+     * @throws InputMismatchException if strict and the token is not a decimal number
+     */
+    static float parseFloat(byte[] b, int off, int len, boolean strict) {
+        return Float.intBitsToFloat((int) parse(b, off, len, strict ? STRICT : LENIENT, true));
+    }
+
+    /* returns the bits of the double, or of the float in the low 32 bits */
+    private static long parse(byte[] b, int off, int len, int mode, boolean isFloat) {
+        int i = off, end = off + len;
+        boolean negative = false;
+        if (i < end && (b[i] == '-' || b[i] == '+')) negative = b[i++] == '-';
+        if (i < end && (b[i] == 'N' || b[i] == 'I')) return parseSpecial(b, i, end, negative, mode, isFloat);
+
+        long significand = 0;
+        int digits = 0, exponent = 0, d;
+        boolean truncated = false, anyDigit = false;
+        for (; i < end && (d = b[i] - '0') >= 0 && d <= 9; i++) {
+            anyDigit = true;
+            if (digits < MAX_DIGITS) {
+                significand = significand * 10 + d;
+                if (significand != 0) digits++;
+            } else {
+                truncated = true;
+                exponent++;
+            }
+        }
+        if (i < end && b[i] == '.') {
+            for (i++; i < end && (d = b[i] - '0') >= 0 && d <= 9; i++) {
+                anyDigit = true;
+                if (digits < MAX_DIGITS) {
+                    significand = significand * 10 + d;
+                    if (significand != 0) digits++;
+                    exponent--;
+                } else truncated = true;
+            }
+        }
+        if (!anyDigit) {
+            if (mode != LENIENT) return invalid(mode);
+            return isFloat ? floatBits(Float.NaN) : Double.doubleToRawLongBits(Double.NaN);
+        }
+        int numberEnd = i;
+        if (i < end && (b[i] == 'e' || b[i] == 'E')) {
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (j < end && (b[j] == '-' || b[j] == '+')) negativeExponent = b[j++] == '-';
+            int explicit = 0;
+            boolean anyExponentDigit = false;
+            for (; j < end && (d = b[j] - '0') >= 0 && d <= 9; j++) {
+                anyExponentDigit = true;
+                if (explicit < 1<<16) explicit = explicit * 10 + d;
+            }
+            if (anyExponentDigit) {
+                exponent += negativeExponent ? -explicit : explicit;
+                i = numberEnd = j;
+            }
+        }
+        if (i != end && mode != LENIENT) return invalid(mode);
+
+        if (!truncated) {
+            double value = isFloat ? toFloat(significand, exponent) : toDouble(significand, exponent);
+            if (value >= 0) return isFloat ? floatBits(negative ? -(float) value : (float) value)
+                    : Double.doubleToRawLongBits(negative ? -value : value);
+        }
+        String s = new String(b, off, numberEnd - off, StandardCharsets.ISO_8859_1);
+        return isFloat ? floatBits(Float.parseFloat(s)) : Double.doubleToRawLongBits(Double.parseDouble(s));
+    }
+
+    /* throws for a malformed token in strict mode, returns INVALID in checked mode */
+    private static long invalid(int mode) {
+        if (mode == STRICT) throw new InputMismatchException();
+        return INVALID;
+    }
+
+    private static long floatBits(float value) {
+        return Float.floatToRawIntBits(value) & 0xFFFFFFFFL;
+    }
+
+    private static long parseSpecial(byte[] b, int i, int end, boolean negative, int mode, boolean isFloat) {
+        double value;
+        if (matches(b, i, end, "NaN")) value = Double.NaN;
+        else if (matches(b, i, end, "Infinity")) value = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        else if (mode != LENIENT) return invalid(mode);
+        else value = Double.NaN;
+        return isFloat ? floatBits((float) value) : Double.doubleToRawLongBits(value);
+    }
+
+    private static boolean matches(byte[] b, int i, int end, String word) {
+        if (end - i != word.length()) return false;
+        for (int k = 0; k < word.length(); k++) if (b[i + k] != word.charAt(k)) return false;
+        return true;
+    }
+
+    /* the positive double unsigned significand * 10^power, or -1 if undecided */
+    static double toDouble(long significand, int power) {
+        if (power >= -22 && power <= 22 && significand >= 0 && significand <= 1L<<53) {
+            double d = significand;
+            return power < 0 ? d / DOUBLE_POW10[-power] : d * DOUBLE_POW10[power];
+        }
+        if (significand == 0 || power < SMALLEST_POWER) return 0;
+        if (power > LARGEST_POWER) return Double.POSITIVE_INFINITY;
+        long bits = eiselLemire(significand, power, 52, 1023);
+        return bits == -1 ? -1 : Double.longBitsToDouble(bits);
+    }
+
+    /* the positive float unsigned significand * 10^power, or -1 if undecided */
+    static float toFloat(long significand, int power) {
+        if (power >= -10 && power <= 10 && significand >= 0 && significand <= 1L<<24) {
+            float f = significand;
+            return power < 0 ? f / FLOAT_POW10[-power] : f * FLOAT_POW10[power];
+        }
+        if (significand == 0 || power < FLOAT_SMALLEST_POWER) return 0;
+        if (power > FLOAT_LARGEST_POWER) return Float.POSITIVE_INFINITY;
+        long bits = eiselLemire(significand, power, 23, 127);
+        return bits == -1 ? -1 : Float.intBitsToFloat((int) bits);
+    }
+
+    /*
+     * Eisel-Lemire conversion of significand * 10^power to a binary floating point number
+     * with the given number of explicit mantissa bits and exponent bias. Returns the bits
+     * of the normal result or -1 if the rounding cannot be decided from the product, in
+     * which case the caller falls back to the slow path.
+     */
+    private static long eiselLemire(long significand, int power, int mantissaBits, int bias) {
+        long factorHigh = POW5_HIGH[power - SMALLEST_POWER];
+        int lz = Long.numberOfLeadingZeros(significand);
+        long w = significand << lz;
+
+        long lower = w * factorHigh, upper = unsignedMultiplyHigh(w, factorHigh);
+        int shift = 64 - mantissaBits - 3;
+        long mask = (1L << shift) - 1;
+        if ((upper & mask) == mask && Long.compareUnsigned(lower + w, lower) < 0) {
+            long factorLow = POW5_LOW[power - SMALLEST_POWER];
+            long productLow = w * factorLow;
+            long productMiddle = lower + unsignedMultiplyHigh(w, factorLow);
+            if (Long.compareUnsigned(productMiddle, lower) < 0) upper++;
+            if (productMiddle + 1 == 0 && (upper & mask) == mask
+                    && Long.compareUnsigned(productLow + w, productLow) < 0) return -1;
+            lower = productMiddle;
+        }
+
+        int upperBit = (int) (upper >>> 63);
+        long mantissa = upper >>> (upperBit + shift);
+        lz += 1 ^ upperBit;
+        if (lower == 0 && (upper & mask) == 0 && (mantissa & 3) == 1) return -1;
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 1L << (mantissaBits + 1)) {
+            mantissa = 1L << mantissaBits;
+            lz--;
+        }
+        mantissa &= ~(1L << mantissaBits);
+
+        long exponent = (((152170L + 65536) * power) >> 16) + bias + 1 + 63 - lz;
+        if (exponent < 1 || exponent > 2L * bias) return -1;
+        return mantissa | exponent << mantissaBits;
+    }
+
+    /* high 64 bits of the unsigned 128-bit product, Math.multiplyHigh is not available in Java 8 */
+    private static long unsignedMultiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32, y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+        long p01 = x0 * y1;
+        long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL);
+        return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+    }
+}
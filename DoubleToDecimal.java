@@ -0,0 +1,251 @@
+import java.math.BigInteger;
+
+/**
+ * Formats doubles as the shortest decimal which parses back to the same double,
+ * in the format of {@link Double#toString(double)}, straight into a byte array.<br>
+ * This is the Schubfach algorithm of R. Giulietti, "The Schubfach way to render
+ * doubles", which also backs <code>Double.toString</code> since Java 19. Older
+ * runtimes print up to 17 digits where fewer suffice. The 128 bit approximations
+ * of the powers of ten are computed once when the class is loaded.
+ */
+final class DoubleToDecimal {
+
+    /* the longest output, "-2.2250738585072014E-308" */
+    static final int MAX_LENGTH = 24;
+
+    private static final int P = 53, W = 11, H = 17;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1), C_TINY = 3;
+    private static final int BQ_MASK = (1 << W) - 1;
+    private static final long T_MASK = (1L << (P - 1)) - 1;
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final int MASK_28 = (1 << 28) - 1;
+    private static final int K_MIN = -324, K_MAX = 292;
+
+    private static final long[] POW10 = new long[H + 1];
+    /* g1 and g0 of floor(10^-k 2^-r) + 1 for k in [K_MIN, K_MAX], with 2^125 <= 10^-k 2^-r < 2^126 */
+    private static final long[] G = new long[(K_MAX - K_MIN + 1) << 1];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i <= H; i++) POW10[i] = POW10[i - 1] * 10;
+        BigInteger mask63 = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int r = flog2pow10(-k) - 125;
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger pow = BigInteger.TEN.pow(-k);
+                g = r >= 0 ? pow.shiftRight(r) : pow.shiftLeft(-r);
+            } else {
+                g = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(k));
+            }
+            g = g.add(BigInteger.ONE);
+            int i = (k - K_MIN) << 1;
+            G[i] = g.shiftRight(63).longValue();
+            G[i + 1] = g.and(mask63).longValue();
+        }
+    }
+
+    private DoubleToDecimal() {
+    }
+
+    /**
+     * Writes the double into <code>b</code> at <code>pos</code>, which must have
+     * room for {@link #MAX_LENGTH} bytes.
+     *
+     * @return the position after the last byte written
+     */
+    static int write(double v, byte[] b, int pos) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq == BQ_MASK) return ascii(t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity", b, pos);
+        if (bits < 0) b[pos++] = '-';
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            // integers below 2^53 are exact
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) return toChars(f, 0, b, pos);
+            }
+            return toDecimal(-mq, c, 0, b, pos);
+        }
+        if (t != 0) return t < C_TINY ? toDecimal(Q_MIN, 10 * t, -1, b, pos) : toDecimal(Q_MIN, t, 0, b, pos);
+        return ascii("0.0", b, pos);
+    }
+
+    /* writes the shortest decimal of c 2^q, which is ten times the value if dk is -1 */
+    private static int toDecimal(int q, long c, int dk, byte[] b, int pos) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        int i = (k - K_MIN) << 1;
+        long g1 = G[i], g0 = G[i + 1];
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // s' 10 and t' 10 with one digit less, when one of them is in the rounding interval
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) return toChars(upin ? sp10 : tp10, k, b, pos);
+        }
+        long tt = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (tt << 2) + out <= vbr;
+        if (uin != win) return toChars(uin ? s : tt, k + dk, b, pos);
+        long cmp = vb - (s + tt << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : tt, k + dk, b, pos);
+    }
+
+    /* rounds to odd the product of g 2^-127 and cp */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /* writes f 10^e in the format of Double.toString */
+    private static int toChars(long f, int e, byte[] b, int pos) {
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POW10[len]) len++;
+        // now 10^(H-1) <= f < 10^H and the value is 0.f 10^e
+        f *= POW10[H - len];
+        e += len;
+
+        long hm = multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+        int l = (int) (f - 100_000_000L * hm);
+        int h = (int) (hm * 1_441_151_881L >>> 57);
+        int m = (int) (hm - 100_000_000 * h);
+
+        if (0 < e && e <= 7) {
+            // plain format without leading zeroes
+            b[pos++] = (byte) ('0' + h);
+            int y = y(m), i = 1;
+            for (; i < e; i++) {
+                int t = 10 * y;
+                b[pos++] = (byte) ('0' + (t >>> 28));
+                y = t & MASK_28;
+            }
+            b[pos++] = '.';
+            for (; i <= 8; i++) {
+                int t = 10 * y;
+                b[pos++] = (byte) ('0' + (t >>> 28));
+                y = t & MASK_28;
+            }
+            return lowDigits(l, b, pos);
+        }
+        if (-3 < e && e <= 0) {
+            // plain format with leading zeroes
+            b[pos++] = '0';
+            b[pos++] = '.';
+            for (; e < 0; e++) b[pos++] = '0';
+            b[pos++] = (byte) ('0' + h);
+            pos = eightDigits(m, b, pos);
+            return lowDigits(l, b, pos);
+        }
+        // computerized scientific notation
+        b[pos++] = (byte) ('0' + h);
+        b[pos++] = '.';
+        pos = eightDigits(m, b, pos);
+        pos = lowDigits(l, b, pos);
+        return exponent(e - 1, b, pos);
+    }
+
+    /* writes the last 8 digits and removes the trailing zeroes, but the one after the point */
+    private static int lowDigits(int l, byte[] b, int pos) {
+        if (l != 0) pos = eightDigits(l, b, pos);
+        while (b[pos - 1] == '0') pos--;
+        if (b[pos - 1] == '.') pos++;
+        return pos;
+    }
+
+    /* writes the 8 digits of m from left to right */
+    private static int eightDigits(int m, byte[] b, int pos) {
+        int y = y(m);
+        for (int i = 0; i < 8; i++) {
+            int t = 10 * y;
+            b[pos++] = (byte) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return pos;
+    }
+
+    /* floor((a + 1) 2^28 / 10^8) - 1 for a < 10^8 */
+    private static int y(int a) {
+        return (int) (multiplyHigh((long) (a + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+
+    private static int exponent(int e, byte[] b, int pos) {
+        b[pos++] = 'E';
+        if (e < 0) {
+            b[pos++] = '-';
+            e = -e;
+        }
+        if (e < 10) {
+            b[pos++] = (byte) ('0' + e);
+            return pos;
+        }
+        int d;
+        if (e >= 100) {
+            d = e * 1_311 >>> 17;
+            b[pos++] = (byte) ('0' + d);
+            e -= 100 * d;
+        }
+        d = e * 103 >>> 10;
+        b[pos++] = (byte) ('0' + d);
+        b[pos++] = (byte) ('0' + e - 10 * d);
+        return pos;
+    }
+
+    private static int ascii(String s, byte[] b, int pos) {
+        for (int i = 0; i < s.length(); i++) b[pos++] = (byte) s.charAt(i);
+        return pos;
+    }
+
+    /* floor(log10(2^e)) */
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    /* floor(log10(3/4 2^e)) */
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    /* floor(log2(10^e)) */
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /* the high 64 bits of the 128 bit product, Math.multiplyHigh of Java 9 */
+    static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32, x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32, y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+}
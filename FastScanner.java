@@ -1,28 +1,93 @@
-
-import com.sun.istack.internal.NotNull;
 import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A fast input reader to read primitive data types from any InputStream.
  * It provides similar functionality to that of Scanner class but is much faster than
  * Scanner or BufferedReader Class.<br>
- * The input stream is buffered using
- * {@linkplain BufferedInputStream BufferedInputStream} to provide faster reading.
+ * Streams, strings, files and {@linkplain ReadableByteChannel channels} are read
+ * straight into the buffer of the scanner, without a BufferedInputStream.
+ * Files can alternatively be read in memory mapped mode, see
+ * {@link #FastScanner(Path, boolean)}. The buffer size, its growth and a shared
+ * {@link BufferPool} are configured with {@link #builder()}, and a scanner can be
+ * moved to a new source without reallocating by {@link #reset(InputStream)}.
  *
  * @author Kaustubh Dandekar
  **/
-public class FastScanner {
+public class FastScanner implements Closeable {
 
-    private final BufferedInputStream inputStream;
-    private final int BUFFER_SIZE = 1<<10;
+    private InputStream inputStream;
+    private static final int DEFAULT_BUFFER_SIZE = 1<<13;
+    private static final int PREFETCH_BUFFER_SIZE = 1<<16;
+    private static final int MIN_BUFFER_SIZE = 1<<4, MAX_BUFFER_SIZE = 1<<30;
+    /* number of consecutive full reads after which a growable buffer doubles */
+    private static final int GROWTH_READS = 4;
+    /* magnitudes which can take len more digits without overflowing a long */
+    private static final long[] SAFE_MAGNITUDE = {
+            (long) 1e18, (long) 1e17, (long) 1e16, (long) 1e15, (long) 1e14, (long) 1e13, (long) 1e12, (long) 1e11, (long) 1e10};
     private byte[] buffer;
     private int bufpointer, bytesRead;
+    /* pool the buffer is taken from and returned to on close(), or null */
+    private BufferPool pool;
+    /* size of the buffer taken from the pool, the buffer grows up to maxBufferSize */
+    private int bufferSize, maxBufferSize, fullReads;
+    private final Prefetcher prefetcher;
+    private final TokenView tokenView = new TokenView();
+    private ByteBuffer wordView;
+    private byte[] wordArray;
+    /* views of the buffers the scanner reads into, the prefetch ring rotates three buffers */
+    private final ByteBuffer[] wordViews = new ByteBuffer[4];
+    private int nextWordView;
+
+    /* decimal number scanned by scanDecimal() */
+    private long decimalSignificand;
+    private int decimalExponent;
+    private boolean decimalNegative;
+
+    private static final long LINE_FEEDS = Swar.broadcast('\n'), CARRIAGE_RETURNS = Swar.broadcast('\r');
+    /* how scanField() ended a field, or'ed with QUOTED for quoted fields */
+    static final int FIELD_END = 0, RECORD_END = 1, INPUT_END = 2, QUOTED = 4;
+    /* a line ended with '\r' at the end of the buffer, a following '\n' belongs to it */
+    private boolean pendingLineFeed;
+
+    /* charset of the Strings returned by next() and nextLine() */
+    private Charset charset = StandardCharsets.UTF_8;
 
-    /* for caching the bytes representing a line in hasNextLine method */
-//    private String lineCache;
+    /* opt-in metrics, and the tokens counted since the last refill, both null if metrics are not used */
+    private ScannerMetrics metrics;
+    private long[] tokenCounts;
+
+    /* sidecar of a file source serving the numbers until the first read it cannot serve, or null */
+    private ParseCache cache;
+
+    /* input offset of buffer[0], for the positions reported by the try methods */
+    private long bufferOffset;
+    /* line feeds counted before buffer[linesCounted] and the offset of the line they start, lineCount -1 if unknown;
+       lines are counted on refill once a try method is used */
+    private boolean trackLines;
+    private long lineCount, lineStart;
+    private int linesCounted;
+    /* receiver of the tokens rejected by the try methods, or null */
+    private ParseResult.RejectSink rejects;
 
     /**
      * Constructs a new <code>FastScanner</code> object that reads from
@@ -32,96 +97,628 @@ public class FastScanner {
      */
     public FastScanner(@NotNull InputStream in) {
         Objects.requireNonNull(in, "Data Input Stream cannot be null");
-        inputStream = new BufferedInputStream(in);
-        buffer = new byte[BUFFER_SIZE];
+        inputStream = in;
+        buffer = new byte[DEFAULT_BUFFER_SIZE];
+        bufpointer = bytesRead = 0;
+        prefetcher = null;
+    }
+
+    /**
+     * Constructs a new <code>FastScanner</code> object that reads from
+     * the provided input stream in background prefetch mode.<br>
+     * The next buffer of input is read on a thread created by the provided
+     * factory while the current buffer is being parsed, so parsing and I/O
+     * overlap on pipes and slow disks. The time spent waiting for the
+     * background reads is reported by {@link #getPrefetchWaitCount()} and
+     * {@link #getPrefetchWaitNanos()}.
+     *
+     * @param in            Input Stream to read from
+     * @param threadFactory factory for the background reading thread, for example
+     *                      a virtual thread factory
+     */
+    public FastScanner(@NotNull InputStream in, @NotNull ThreadFactory threadFactory) {
+        this(Objects.requireNonNull(in, "Data Input Stream cannot be null"), PREFETCH_BUFFER_SIZE,
+                Objects.requireNonNull(threadFactory, "Thread Factory cannot be null"));
+    }
+
+    /* Constructs a scanner in prefetch mode with buffers of the given size */
+    private FastScanner(InputStream in, int bufferSize, ThreadFactory threadFactory) {
+        inputStream = in;
+        buffer = new byte[bufferSize];
         bufpointer = bytesRead = 0;
+        prefetcher = new Prefetcher(in, bufferSize, threadFactory);
     }
 
     /**
      * Constructs a new <code>FastScanner</code> object that reads from
      * the provided file <code>Path</code>. The Contents of file will be read as InputStream.
+     * If the file has an up to date {@link ParseCache} sidecar its numbers are read from it.
      *
      * @param path Path object of file to read from
      */
     public FastScanner(@NotNull Path path) throws FileNotFoundException {
         Objects.requireNonNull(path, "Data Input Stream cannot be null");
-        inputStream = new BufferedInputStream(new FileInputStream(path.getFileName().toString()));
-        buffer = new byte[BUFFER_SIZE];
+        inputStream = new FileInputStream(path.toFile());
+        buffer = new byte[DEFAULT_BUFFER_SIZE];
+        bufpointer = bytesRead = 0;
+        prefetcher = null;
+        cache = openCache(path);
+    }
+
+    /**
+     * Constructs a new <code>FastScanner</code> object that reads from
+     * the provided file <code>Path</code>.<br>
+     * In memory mapped mode the file is read through a
+     * {@linkplain java.nio.MappedByteBuffer MappedByteBuffer} window which slides
+     * over the file, so refills are copied straight from the page cache without a
+     * <code>read</code> system call. Files larger than 2 GB are supported.
+     * Otherwise the file is read like by {@link #FastScanner(Path)}, from its
+     * {@link ParseCache} sidecar if it has an up to date one.
+     *
+     * @param path         Path object of file to read from
+     * @param memoryMapped <code>true</code> to map the file instead of reading it as InputStream
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public FastScanner(@NotNull Path path, boolean memoryMapped) throws IOException {
+        Objects.requireNonNull(path, "Data Input Stream cannot be null");
+        inputStream = memoryMapped ? openMapped(path) : new FileInputStream(path.toFile());
+        buffer = new byte[DEFAULT_BUFFER_SIZE];
         bufpointer = bytesRead = 0;
+        prefetcher = null;
+        if (!memoryMapped) cache = openCache(path);
     }
 
     /**
      * Constructs a new <code>FastScanner</code> object that reads from
-     * the provided String. The provided string will be used as an InputStream.
+     * the provided String. The provided string will be used as an InputStream
+     * of its UTF-8 encoding.
      *
      * @param string String to read from
      */
     public FastScanner(@NotNull String string) {
         Objects.requireNonNull(string, "Data Input Stream cannot be null");
-        inputStream = new BufferedInputStream(new ByteArrayInputStream(string.getBytes()));
-        buffer = new byte[BUFFER_SIZE];
+        inputStream = new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8));
+        buffer = new byte[DEFAULT_BUFFER_SIZE];
         bufpointer = bytesRead = 0;
+        prefetcher = null;
     }
 
     /**
      * Constructs a new <code>FastScanner</code> object that reads from
      * the provided <code>File</code> object.
      * The Contents of file will be read as InputStream.
+     * If the file has an up to date {@link ParseCache} sidecar its numbers are read from it.
      *
      * @param file File to read from
      */
     public FastScanner(@NotNull File file) throws FileNotFoundException {
         Objects.requireNonNull(file, "Data Input Stream cannot be null");
-        inputStream = new BufferedInputStream(new FileInputStream(file));
-        buffer = new byte[BUFFER_SIZE];
+        inputStream = new FileInputStream(file);
+        buffer = new byte[DEFAULT_BUFFER_SIZE];
+        bufpointer = bytesRead = 0;
+        prefetcher = null;
+        cache = openCache(file.toPath());
+    }
+
+    /**
+     * Constructs a new <code>FastScanner</code> object that reads from
+     * the provided <code>File</code> object, optionally in memory mapped mode.
+     *
+     * @param file         File to read from
+     * @param memoryMapped <code>true</code> to map the file instead of reading it as InputStream
+     * @throws IOException if the file cannot be opened or mapped
+     * @see #FastScanner(Path, boolean)
+     */
+    public FastScanner(@NotNull File file, boolean memoryMapped) throws IOException {
+        this(Objects.requireNonNull(file, "Data Input Stream cannot be null").toPath(), memoryMapped);
+    }
+
+    /**
+     * Constructs a new <code>FastScanner</code> object that reads from
+     * the provided channel, such as a socket, a pipe or a file channel.<br>
+     * The channel reads into a pooled direct ByteBuffer from which the bytes are
+     * copied once into the buffer of the scanner, without a BufferedInputStream.
+     * A file channel is read from its current position and can be split by the
+     * parallel streams of <tt>ints()</tt>, <tt>longs()</tt> and <tt>doubles()</tt>.
+     *
+     * @param channel channel in blocking mode to read from, closed by <tt>close()</tt>
+     * @throws java.nio.channels.IllegalBlockingModeException
+     *         if the channel is in non-blocking mode
+     */
+    public FastScanner(@NotNull ReadableByteChannel channel) {
+        Objects.requireNonNull(channel, "Channel cannot be null");
+        inputStream = new ChannelInputStream(channel);
+        buffer = new byte[DEFAULT_BUFFER_SIZE];
+        bufpointer = bytesRead = 0;
+        prefetcher = null;
+    }
+
+    /* Constructs a scanner over a stream which needs no further buffering, such as a mapped file region */
+    FastScanner(InputStream in, int bufferSize) {
+        this(in, new byte[bufferSize]);
+    }
+
+    /* Constructs a scanner reading into the given buffer, which may be taken from a pool */
+    private FastScanner(InputStream in, byte[] buffer) {
+        inputStream = in;
+        this.buffer = buffer;
+        bufpointer = bytesRead = 0;
+        prefetcher = null;
+    }
+
+    /**
+     * Returns a builder of scanners with a configurable buffer size, buffer growth
+     * and buffer pool.
+     *
+     * <pre>{@code
+     *  FastScanner.Builder builder = FastScanner.builder().bufferSize(1<<12).bufferPool(BufferPool.shared());
+     *  try (FastScanner scanner = builder.build(request.getInputStream())) { ... }
+     * }</pre>
+     *
+     * @return a new builder with the default settings
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+//    Returns the up to date sidecar of the file, or null if it has none or it cannot be read
+    private static ParseCache openCache(Path path){
+        try {
+            return ParseCache.open(path);
+        } catch (IOException e){
+            return null;
+        }
+    }
+
+//    Continues in the text file at the token the cache has reached, on the first read the cache does not serve
+    private void leaveCache() throws IOException{
+        ParseCache c = cache;
+        cache = null;
+        FileChannel channel = ((FileInputStream) inputStream).getChannel();
+        channel.position(bufferOffset = c.textPosition(channel));
+        if (bufferOffset > 0) lineCount = -1;
+    }
+
+    private static InputStream openMapped(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new MappedFileInputStream(channel, 0, channel.size(), true);
+    }
+
+//    Returns the metrics of the scanner, passed on to the scanners of split file regions
+    ScannerMetrics metrics(){
+        return metrics;
+    }
+
+//    Returns the channel of a file source whose remaining input can be split, or null
+    FileChannel splittableChannel(){
+        if (prefetcher != null) return null;
+        if (inputStream instanceof MappedFileInputStream) return ((MappedFileInputStream) inputStream).channel();
+        if (inputStream instanceof FileInputStream) return ((FileInputStream) inputStream).getChannel();
+        if (inputStream instanceof ChannelInputStream) return ((ChannelInputStream) inputStream).fileChannel();
+        return null;
+    }
+
+//    Returns the file position of the next unread byte of a splittable file source
+    long position() throws IOException{
+        long next;
+        if (inputStream instanceof MappedFileInputStream) next = ((MappedFileInputStream) inputStream).position();
+        else if (inputStream instanceof ChannelInputStream)
+            next = splittableChannel().position() - ((ChannelInputStream) inputStream).buffered();
+        else next = splittableChannel().position();
+        return next - Math.max(bytesRead - bufpointer, 0);
+    }
+
+//    Returns the file position after the last byte read by a splittable file source
+    long end() throws IOException{
+        return inputStream instanceof MappedFileInputStream ? ((MappedFileInputStream) inputStream).end()
+                : splittableChannel().size();
+    }
+
+//    Moves a splittable file source to the end of input once its remaining input is read by other scanners
+    void skipToEnd() throws IOException{
+        bufpointer = Math.max(bytesRead, 0);
+        skipBytes(Long.MAX_VALUE);
         bufpointer = bytesRead = 0;
     }
 
     private void fillBuffer() throws IOException {
-        bytesRead = inputStream.read(buffer, bufpointer = 0, BUFFER_SIZE);
+        if (cache != null) leaveCache();
+        if (metrics == null) refill();
+        else measuredRefill();
+    }
+
+//    Refill timing the read for the metrics and the Flight Recorder
+    private void measuredRefill() throws IOException {
+        Object event = FlightRecorderEvents.beginRefill();
+        long start = System.nanoTime();
+        refill();
+        long nanos = System.nanoTime() - start;
+        metrics.refill(Math.max(bytesRead, 0), nanos, tokenCounts);
+        FlightRecorderEvents.commitRefill(event, Math.max(bytesRead, 0));
+    }
+
+    private void refill() throws IOException {
+        if (bytesRead > 0){
+            if (!trackLines) lineCount = -1;
+            else countLines(bytesRead);
+            bufferOffset += bytesRead;
+        }
+        linesCounted = 0;
+        if (prefetcher != null){
+            buffer = prefetcher.exchange(buffer);
+            bytesRead = prefetcher.length();
+            bufpointer = 0;
+        }
+        else {
+            if (buffer == null) throw new IOException("Scanner closed");
+            if (buffer.length < maxBufferSize) growIfFull();
+            bytesRead = inputStream.read(buffer, bufpointer = 0, buffer.length);
+        }
         if (bytesRead == -1) buffer[0] = -1;
     }
 
+//    Double the buffer after GROWTH_READS consecutive reads filled it, the consumed buffer is returned to the pool
+    private void growIfFull(){
+        if (bytesRead != buffer.length){
+            fullReads = 0;
+            return;
+        }
+        if (++fullReads < GROWTH_READS) return;
+        fullReads = 0;
+        int size = Math.min(buffer.length << 1, maxBufferSize);
+        byte[] grown = pool == null ? new byte[size] : pool.acquire(size);
+        if (pool != null) pool.release(buffer);
+        buffer = grown;
+    }
+
+    private void count(ScannerMetrics.Token token){
+        long[] counts = tokenCounts;
+        if (counts != null) counts[token.ordinal()]++;
+    }
+
+    private int count(ScannerMetrics.Token token, int n){
+        long[] counts = tokenCounts;
+        if (counts != null) counts[token.ordinal()] += n;
+        return n;
+    }
+
+//    Counts the mismatch of a Strict method in the metrics and returns it to be thrown
+    private InputMismatchException mismatch(InputMismatchException e, ScannerMetrics.Token token){
+        if (metrics != null) metrics.mismatch(token);
+        return e;
+    }
+
     private byte read() throws IOException{
-        if (bufpointer == bytesRead) fillBuffer();
+        if (bufpointer >= bytesRead) fillBuffer();
         return buffer[bufpointer++];
     }
 
-//    Skip all the non-numeric bytes since we are expecting only valid data types in input
-    private int[] skipNonNumerics() throws IOException{
-        int sign = 1;
+//    Skip the separator bytes and return the first byte of the next token, or -1 at the end of input
+    private int skipSeparators() throws IOException{
         byte c = read();
-        while (c <= ' ') c = read();
-        if (c == '-'){
+        while (c <= ' '){
+            if (c < 0){
+                if (c == -1 && bytesRead == -1) return -1;
+                break;
+            }
             c = read();
-            sign = -1;
         }
-        return new int[]{c, sign};
+        return c & 0xFF;
     }
 
-//    Skip Only the non-character bytes as we want to validate the data types in input
-    private int[] skipNonCharacters() throws IOException{
-        int sign = 1;
-        byte c = read();
-        while (c <= ' ') c = read();
+//    Returns the first byte of the next token for the methods reading a single value
+    private int tokenStart() throws IOException{
+        int c = skipSeparators();
+        if (c == -1) throw new NoSuchElementException();
+        return c;
+    }
+
+//    Returns the 8 bytes at buf[p, p+8) as a little-endian word
+    private long wordAt(byte[] buf, int p){
+        if (wordArray != buf) useWordView(buf);
+        return wordView.getLong(p);
+    }
+
+//    Switches to the view of the buffer, wrapping it only the first time it is read
+    private void useWordView(byte[] buf){
+        ByteBuffer[] views = wordViews;
+        int i = 0;
+        while (i < views.length && views[i] != null && views[i].array() != buf) i++;
+        if (i == views.length) i = nextWordView++ & views.length - 1;
+        if (views[i] == null || views[i].array() != buf) views[i] = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+        wordView = views[i];
+        wordArray = buf;
+    }
+
+//    Parse the token starting with byte c without validating the digits.
+//    Runs of up to 8 digits are converted at once while 8 bytes remain in the
+//    buffer, the remaining bytes one at a time. The buffer position is kept in
+//    locals and written back only on refill.
+    private long parseLongFast(int c) throws IOException{
+        boolean negative = c == '-';
+        if (negative) c = read();
+        byte[] buf = buffer;
+        int p = bufpointer, n = bytesRead;
+
+        long value = c - '0';
+        while (p <= n - 8){
+            long word = wordAt(buf, p);
+            int len = Swar.leadingDigits(word);
+            if (len == 0) break;
+            value = value * Swar.POW10[len] + Swar.digits(word, len);
+            p += len;
+            if (len < 8) break;
+        }
+        while (true){
+            if (p >= n){
+                bufpointer = p;
+                fillBuffer();
+                buf = buffer; p = 0; n = bytesRead;
+            }
+            if ((c=buf[p++]) <= ' ') break;
+            value = value * 10 + c - '0';
+        }
+
+        bufpointer = p;
+        return negative ? -value : value;
+    }
+
+//    Parse and validate the token starting with byte c as an integer with
+//    magnitude at most limit, or limit+1 if negative. Digits are validated and
+//    accumulated 8 at a time like in parseLongFast().
+    private long parseIntegerStrict(int c, long limit) throws IOException{
         if (c != '-' && (c < '0' || c > '9')) throw new InputMismatchException();
-        if (c == '-'){
-            c = read();
-            sign = -1;
+        boolean negative = c == '-';
+        if (negative) c = read();
+        if (c < '0' || c > '9') throw new InputMismatchException();
+        long max = negative ? limit + 1 : limit;
+        byte[] buf = buffer;
+        int p = bufpointer, n = bytesRead;
+
+        long value = c - '0';
+        while (p <= n - 8){
+            long word = wordAt(buf, p);
+            int len = Swar.leadingDigits(word);
+            if (len == 0) break;
+            value = appendDigits(value, len, Swar.digits(word, len), max);
+            p += len;
+            if (len < 8) break;
+        }
+        while (true){
+            if (p >= n){
+                bufpointer = p;
+                fillBuffer();
+                buf = buffer; p = 0; n = bytesRead;
+            }
+            if ((c=buf[p++]) <= ' ') break;
+            if (c < '0' || c > '9'){
+                bufpointer = p;
+                throw new InputMismatchException();
+            }
+            value = appendDigits(value, 1, c - '0', max);
         }
-        return new int[]{c, sign};
+
+        bufpointer = p;
+        if (Long.compareUnsigned(value, max) > 0) throw new InputMismatchException();
+        return negative ? -value : value;
+    }
+
+//    Appends len digits to the unsigned magnitude, throwing if it exceeds max.
+//    Magnitudes below 10^(18-len) cannot overflow and skip the exact check,
+//    compared unsigned as the magnitude of Long.MIN_VALUE is negative.
+    private static long appendDigits(long value, int len, long digits, long max){
+        long pow = Swar.POW10[len];
+        if (Long.compareUnsigned(value, SAFE_MAGNITUDE[len]) >= 0 && Long.compareUnsigned(value, Long.divideUnsigned(max - digits, pow)) > 0)
+            throw new InputMismatchException();
+        return value * pow + digits;
+    }
+
+    private int parseIntStrict(int c) throws IOException{
+        return (int) parseIntegerStrict(c, Integer.MAX_VALUE);
+    }
+
+    private long parseLongStrict(int c) throws IOException{
+        return parseIntegerStrict(c, Long.MAX_VALUE);
+    }
+
+    private static short toShortStrict(int value){
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) throw new InputMismatchException();
+        return (short) value;
+    }
+
+    private static void checkRange(int length, int off, int len){
+        if (off < 0 || len < 0 || len > length - off) throw new IndexOutOfBoundsException();
     }
 
     /**
-     *  Closes the <code>FastScanner</code> object.
+     *  Closes the <code>FastScanner</code> object and returns a pooled buffer to its pool.
      *
      * @throws IOException if the object is already closed or i/o error occurs
      * */
+    @Override
     public void close() throws IOException{
         if (inputStream == null) return;
+        cache = null;
+        if (prefetcher != null) prefetcher.close();
+        if (metrics != null) metrics.addTokens(tokenCounts);
+        if (pool != null && buffer != null){
+            pool.release(buffer);
+            buffer = wordArray = null;
+            wordView = null;
+            Arrays.fill(wordViews, null);
+            bufpointer = bytesRead = 0;
+        }
         inputStream.close();
     }
 
+    /**
+     *  Moves the scanner to a new input stream, reusing its buffer, so one scanner
+     *  can read many short inputs, such as the bodies of requests, without
+     *  allocating. The unread input of the previous source is discarded and the
+     *  previous source is not closed. A closed scanner can be reset and takes a
+     *  buffer from its pool again.
+     *
+     * @param in Input Stream to read from
+     * @return this scanner
+     * @throws IllegalStateException if the scanner is in prefetch mode
+     * */
+    public FastScanner reset(@NotNull InputStream in){
+        Objects.requireNonNull(in, "Data Input Stream cannot be null");
+        if (prefetcher != null) throw new IllegalStateException("Prefetch mode scanner cannot be reset");
+        if (buffer == null) buffer = pool.acquire(bufferSize);
+        inputStream = in;
+        cache = null;
+        bufpointer = bytesRead = fullReads = 0;
+        pendingLineFeed = false;
+        bufferOffset = lineCount = lineStart = linesCounted = 0;
+        return this;
+    }
+
+    /**
+     *  Moves the scanner to the UTF-8 encoding of a String, reusing its buffer.
+     *
+     * @param string String to read from
+     * @return this scanner
+     * @throws IllegalStateException if the scanner is in prefetch mode
+     * @see #reset(InputStream)
+     * */
+    public FastScanner reset(@NotNull String string){
+        Objects.requireNonNull(string, "Data Input Stream cannot be null");
+        return reset(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     *  Skips over the next <code>n</code> bytes of input. File sources, including
+     *  file channels and memory mapped files, move their position without reading
+     *  the skipped bytes, other sources read and discard them.
+     *
+     * @param n number of bytes to skip
+     * @return the number of bytes skipped, less than <code>n</code> only if
+     *         the end of input is reached
+     * @throws IOException if the object is closed or i/o error occurs
+     * */
+    public long skipBytes(long n) throws IOException{
+        if (cache != null) leaveCache();
+        if (n <= 0 || bytesRead == -1) return 0;
+        int buffered = (int) Math.min(n, Math.max(bytesRead - bufpointer, 0));
+        bufpointer += buffered;
+        long skipped = buffered;
+        if (skipped < n && splittableChannel() != null) n = skipped + Math.min(n - skipped, end() - position());
+        while (skipped < n){
+            if (prefetcher == null){
+                long k = inputStream.skip(n - skipped);
+                if (k > 0){
+                    skipped += k;
+                    bufferOffset += k;
+                    lineCount = -1;
+                    continue;
+                }
+            }
+            fillBuffer();
+            if (bytesRead == -1) break;
+            bufpointer = (int) Math.min(n - skipped, bytesRead);
+            skipped += bufpointer;
+        }
+        return skipped;
+    }
+
+    /**
+     *  Moves the scanner to the start of a line of its file, read from the nearest
+     *  line offset of the index on. The line is counted from 0 like the lines
+     *  returned by <tt>nextLine()</tt> from the start of the file.
+     *
+     * @param index index of the file the scanner reads
+     * @param line  number of the line, at most the number of lines of the file
+     * @return this scanner
+     * @throws IllegalStateException if the scanner is in prefetch mode or its source is no file
+     * @throws IllegalArgumentException if the index was built for another version of the file
+     * @throws IndexOutOfBoundsException if the file has fewer lines
+     * @throws IOException if the object is closed or i/o error occurs
+     * @see OffsetIndex
+     * */
+    public FastScanner seekLine(@NotNull OffsetIndex index, long line) throws IOException{
+        if (line < 0 || line > index.lines()) throw new IndexOutOfBoundsException("Line " + line + " of " + index.lines());
+        cache = null;
+        if (line == index.lines()){
+            seek(index, index.size());
+            return this;
+        }
+        seek(index, index.lineOffset(line));
+        lineCount = line - line % index.interval();
+        lineStart = index.lineOffset(line);
+        for (long i = line % index.interval(); i > 0; i--) scanField(tokenView, '\n', 0x100);
+        return this;
+    }
+
+    /**
+     *  Moves the scanner to the start of a token of its file, read from the nearest
+     *  token offset of the index on. The token is counted from 0 like the tokens
+     *  returned by <tt>next()</tt> from the start of the file. A file with an up to
+     *  date parse cache moves in the cache without reading the text.
+     *
+     * @param index index of the file the scanner reads
+     * @param token number of the token, at most the number of tokens of the file
+     * @return this scanner
+     * @throws IllegalStateException if the scanner is in prefetch mode or its source is no file
+     * @throws IllegalArgumentException if the index was built for another version of the file
+     * @throws IndexOutOfBoundsException if the file has fewer tokens
+     * @throws IOException if the object is closed or i/o error occurs
+     * @see OffsetIndex
+     * */
+    public FastScanner seekToken(@NotNull OffsetIndex index, long token) throws IOException{
+        if (token < 0 || token > index.tokens()) throw new IndexOutOfBoundsException("Token " + token + " of " + index.tokens());
+        if (token == index.tokens()){
+            cache = null;
+            seek(index, index.size());
+            return this;
+        }
+        seek(index, index.tokenOffset(token));
+        if (cache != null){
+            cache.seek(token);
+            return this;
+        }
+        for (long i = token % index.interval(); i > 0; i--){
+            skipSeparators();
+            scanToken(tokenView);
+        }
+        return this;
+    }
+
+//    Moves a file source to the position, discarding the buffered input
+    private void seek(OffsetIndex index, long position) throws IOException{
+        if (prefetcher != null) throw new IllegalStateException("Prefetch mode scanner cannot seek");
+        FileChannel channel = splittableChannel();
+        if (channel == null) throw new IllegalStateException("Scanner source is not a file");
+        if (buffer == null) throw new IOException("Scanner closed");
+        if (channel.size() != index.size()) throw new IllegalArgumentException("Index does not match the file");
+        if (inputStream instanceof MappedFileInputStream) ((MappedFileInputStream) inputStream).seek(position);
+        else if (inputStream instanceof ChannelInputStream) ((ChannelInputStream) inputStream).seek(position);
+        else channel.position(position);
+        bufpointer = bytesRead = linesCounted = 0;
+        pendingLineFeed = false;
+        bufferOffset = position;
+        lineCount = -1;
+    }
+
+    /**
+     *  Returns the number of refills for which the background prefetch
+     *  had not completed and parsing had to wait for I/O.
+     *
+     * @return the number of waits, always 0 if prefetch mode is not used
+     * */
+    public long getPrefetchWaitCount(){
+        return prefetcher == null ? 0 : prefetcher.waitCount();
+    }
+
+    /**
+     *  Returns the total time parsing waited for the background prefetch.
+     *
+     * @return the waiting time in nanoseconds, always 0 if prefetch mode is not used
+     * */
+    public long getPrefetchWaitNanos(){
+        return prefetcher == null ? 0 : prefetcher.waitNanos();
+    }
+
     /**
      *  Checks if the input stream contains a string token
      *
@@ -129,52 +726,349 @@ public class FastScanner {
      * @throws IOException if object is closed or i/o error occurs
      * */
     public boolean hasNext() throws IOException{
-        if (bytesRead == -1) return false;
-        int c;
-        while(true){
-            if ((c=read()) == -1) return false;
-            if (c > ' '){
-                bufpointer--;
-                return true;
-            }
-        }
+        if (cache != null) return cache.hasNext();
+        if (skipSeparators() == -1) return false;
+        bufpointer--;
+        return true;
+    }
+
+    /**
+     *  Checks if the input stream contains another line, which may be empty
+     *
+     * @return <code>true</code> if the stream is not at its end
+     * @throws IOException if object is closed or i/o error occurs
+     * */
+    public boolean hasNextLine() throws IOException{
+        return fillLine();
     }
 
     /**
-     *  Returns the next word in the input stream
+     *  Returns the next word in the input stream, decoded with the charset
+     *  of the scanner, see <tt>useCharset(Charset)</tt>
      *
      *  @return the next word in the input stream
+     *  @throws NoSuchElementException
+     *          if the end of input is reached
      *  @throws IOException
      *          if the object is closed or i/o error occurs
      * */
     public String next() throws IOException{
-        int c = read();
-        while(c < ' ') c = read();
-
-        StringBuilder sb = new StringBuilder();
-        while (c != -1) {
-            if (c <= ' ') break;
-            sb.appendCodePoint(c);
-            c = read();
-        }
-        return sb.toString();
+        if (skipSeparators() == -1) throw new NoSuchElementException();
+        count(ScannerMetrics.Token.WORD);
+        return decode(scanToken(tokenView));
     }
 
     /**
-     *  Returns the next line in the input stream
+     *  Returns the rest of the current line without the line break, decoded
+     *  with the charset of the scanner. A line ends with <code>\n</code>,
+     *  <code>\r\n</code> or <code>\r</code>.
      *
      *  @return the next line in the input stream
+     *  @throws NoSuchElementException
+     *          if the end of input is reached
      *  @throws IOException
      *          if the object is closed or i/o error occurs
      * */
     public String nextLine() throws IOException {
-        int c;
-        StringBuilder sb = new StringBuilder();
-        while ((c = read()) != -1) {
-            if (c == '\n' || c == '\r') break;
-            sb.appendCodePoint(c);
+        if (scanField(tokenView, '\n', 0x100) == INPUT_END) throw new NoSuchElementException();
+        count(ScannerMetrics.Token.LINE);
+        return decode(tokenView);
+    }
+
+    /**
+     *  Sets the charset of the Strings returned by <tt>next()</tt> and <tt>nextLine()</tt>
+     *  and of the text fields of the readers of the scanner, UTF-8 by default. Tokens
+     *  and lines are split at ASCII bytes, so the charset must encode ASCII characters
+     *  as single ASCII bytes, like UTF-8, ISO-8859-1 or windows-1252.
+     *
+     *  @param charset charset of the input
+     *  @return this scanner
+     *  @throws IllegalArgumentException if the charset does not encode ASCII as ASCII
+     * */
+    public FastScanner useCharset(@NotNull Charset charset){
+        Objects.requireNonNull(charset, "Charset cannot be null");
+        String ascii = " \t\r\n,;-.0123456789azAZ";
+        if (!charset.canEncode() || !ascii.equals(new String(ascii.getBytes(charset), StandardCharsets.ISO_8859_1)))
+            throw new IllegalArgumentException("Charset is not ASCII compatible: " + charset);
+        this.charset = charset;
+        return this;
+    }
+
+//    Charset of the Strings decoded by the scanner and its readers
+    Charset charset(){
+        return charset;
+    }
+
+    /**
+     *  Counts the bytes read, the buffer refills, the time blocked in reading the
+     *  source, the tokens read by type and the mismatches of the Strict methods in
+     *  the metrics, and records the refills and mismatches as JDK Flight Recorder
+     *  events. Without metrics the scanner does not measure anything.
+     *
+     *  @param metrics metrics to count in, which may be shared by several scanners,
+     *                 or <code>null</code> to stop counting
+     *  @return this scanner
+     * */
+    public FastScanner useMetrics(ScannerMetrics metrics){
+        if (this.metrics != null) this.metrics.addTokens(tokenCounts);
+        this.metrics = metrics;
+        tokenCounts = metrics == null ? null : new long[ScannerMetrics.Token.values().length];
+        return this;
+    }
+
+    /**
+     *  Passes the tokens rejected by the <tt>tryNext*()</tt> methods to the sink,
+     *  with their status and position, to collect the malformed input of a dirty
+     *  feed while reading on.
+     *
+     *  @param sink receiver of the rejected tokens, or <code>null</code> to only return them
+     *  @return this scanner
+     * */
+    public FastScanner useRejectSink(ParseResult.RejectSink sink){
+        rejects = sink;
+        return this;
+    }
+
+//    Decodes the token with the charset of the scanner, ASCII tokens without a charset decoder
+    String decode(TokenView view){
+        byte[] b = view.array();
+        int off = view.offset(), len = view.length();
+        int bits = 0;
+        for (int i = off, end = off + len; i < end; i++) bits |= b[i];
+        return new String(b, off, len, bits >= 0 ? StandardCharsets.ISO_8859_1 : charset);
+    }
+
+    /**
+     *  Reads the next word in the input stream into the provided view without
+     *  creating a String. The view points into the internal buffer, only a word
+     *  crossing a buffer refill is copied into the view, so the view is valid
+     *  until the next call on this object.
+     *
+     *  @param view the view to point to the next word
+     *  @return <code>false</code> if the end of input is reached
+     *  @throws IOException
+     *          if the object is closed or i/o error occurs
+     * */
+    public boolean nextToken(@NotNull TokenView view) throws IOException{
+        if (skipSeparators() == -1) return false;
+        count(ScannerMetrics.Token.WORD);
+        scanToken(view);
+        return true;
+    }
+
+//    Point the view to the token whose first byte was just read
+    private TokenView scanToken(TokenView view) throws IOException{
+        byte[] buf = buffer;
+        int start = bufpointer - 1, p = bufpointer, n = bytesRead;
+        boolean spilled = false;
+
+        while (true){
+            while (p <= n - 8){
+                long separators = Swar.separatorBytes(wordAt(buf, p));
+                if (separators != 0){
+                    p += Long.numberOfTrailingZeros(separators) >>> 3;
+                    break;
+                }
+                p += 8;
+            }
+            while (p < n && (buf[p] > ' ' || buf[p] < 0)) p++;
+            if (p < n) break;
+            if (!spilled) view.clearSpill();
+            view.append(buf, start, p - start);
+            spilled = true;
+            bufpointer = p;
+            fillBuffer();
+            buf = buffer; start = p = 0; n = bytesRead;
+            if (n == -1) return view;
+        }
+
+        if (spilled) view.append(buf, start, p - start);
+        else view.set(buf, start, p - start);
+        bufpointer = p + 1;
+        return view;
+    }
+
+//    Reads a record of whitespace separated fields into the row of the batch, one field per
+//    code of RecordReader. Strict records are validated and must fill a single line, the
+//    line break after the last field is consumed. Returns false at the end of input.
+    boolean readRecord(int[] codes, ColumnBatch batch, int row, boolean strict) throws IOException{
+        if (cache != null) leaveCache();
+        int c = skipSeparators();
+        if (c == -1) return false;
+        for (int col = 0; col < codes.length; col++){
+            if (col > 0) c = strict ? fieldStart() : skipSeparators();
+            if (c == -1){
+                if (strict) throw new InputMismatchException("Record ends after " + col + " fields");
+                throw new NoSuchElementException();
+            }
+            switch (codes[col]){
+                case RecordReader.INT:
+                    count(ScannerMetrics.Token.INT);
+                    ((int[]) batch.values(col))[row] = strict ? parseIntStrict(c) : (int) parseLongFast(c);
+                    break;
+                case RecordReader.LONG:
+                    count(ScannerMetrics.Token.LONG);
+                    ((long[]) batch.values(col))[row] = strict ? parseLongStrict(c) : parseLongFast(c);
+                    break;
+                case RecordReader.DOUBLE:
+                    count(ScannerMetrics.Token.DOUBLE);
+                    ((double[]) batch.values(col))[row] = parseDouble(c, strict);
+                    break;
+                case RecordReader.TOKEN:
+                    count(ScannerMetrics.Token.WORD);
+                    TokenView token = scanToken(tokenView);
+                    batch.appendToken(col, row, token.array(), token.offset(), token.length());
+                    break;
+                default:
+                    scanToken(tokenView);
+            }
+        }
+        if (strict && !endRecord()) throw new InputMismatchException("Record has more than " + codes.length + " fields");
+        return true;
+    }
+
+//    Skips the spaces before the next field of a record line, starting with the separator
+//    consumed with the previous field, -1 at a line break or the end of input
+    private int fieldStart() throws IOException{
+        int c = lastSeparator();
+        while (true){
+            if (c == '\n' || c == '\r' || c == -1 && bytesRead == -1) return -1;
+            c = read();
+            if (c > ' ' || c < 0 && bytesRead != -1) return c & 0xFF;
+        }
+    }
+
+//    Skips the spaces after the last field of a record line up to its line break, starting with
+//    the separator consumed with the field, false if another field follows
+    private boolean endRecord() throws IOException{
+        int c = lastSeparator();
+        while (c != '\n' && c != '\r'){
+            if (c == -1 && bytesRead == -1) return true;
+            if (c > ' ' || c < 0) return false;
+            c = read();
+        }
+        return true;
+    }
+
+//    Returns the separator consumed with the last token, -1 at the end of input
+    private int lastSeparator(){
+        return bytesRead == -1 ? -1 : buffer[bufpointer - 1];
+    }
+
+//    Points the view to the next field of a delimited record and returns how it ended:
+//    FIELD_END at the delimiter, RECORD_END at a line break or the end of input, or
+//    INPUT_END if no bytes are left, or'ed with QUOTED for a quoted field. Quoted fields
+//    may contain delimiters and line breaks, and a doubled quote stands for a quote; they
+//    are always copied into the spill array of the view. Bytes between the closing quote
+//    and the delimiter are ignored. A quote outside of the byte range disables quoting.
+    int scanField(TokenView view, int delimiter, int quote) throws IOException{
+        if (!fillLine()) return INPUT_END;
+        byte[] buf = buffer;
+        int p = bufpointer, n = bytesRead, start = p, b;
+        view.clearSpill();
+
+        if (buf[p] == quote){
+            start = ++p;
+            while (true){
+                while (p < n && buf[p] != quote) p++;
+                view.append(buf, start, p - start);
+                if (p >= n){
+                    bufpointer = p;
+                    fillBuffer();
+                    buf = buffer; start = p = 0; n = bytesRead;
+                    if (n == -1) throw new InputMismatchException("Unterminated quoted field");
+                    continue;
+                }
+                if (++p >= n){
+                    bufpointer = p;
+                    fillBuffer();
+                    buf = buffer; p = 0; n = bytesRead;
+                    if (n == -1) return RECORD_END | QUOTED;
+                }
+                if (buf[p] != quote) break;
+                start = p++;
+            }
+            while (true){
+                while (p < n && (b = buf[p]) != delimiter && b != '\n' && b != '\r') p++;
+                if (p < n) return endField(p, delimiter) | QUOTED;
+                bufpointer = p;
+                fillBuffer();
+                buf = buffer; p = 0; n = bytesRead;
+                if (n == -1) return RECORD_END | QUOTED;
+            }
+        }
+
+        boolean spilled = false;
+        long delimiters = Swar.broadcast(delimiter);
+        while (true){
+            while (p <= n - 8){
+                long word = wordAt(buf, p);
+                long stops = Swar.equalBytes(word, delimiters) | Swar.equalBytes(word, LINE_FEEDS)
+                        | Swar.equalBytes(word, CARRIAGE_RETURNS);
+                if (stops != 0){
+                    p += Long.numberOfTrailingZeros(stops) >>> 3;
+                    break;
+                }
+                p += 8;
+            }
+            while (p < n && (b = buf[p]) != delimiter && b != '\n' && b != '\r') p++;
+            if (p < n) break;
+            view.append(buf, start, p - start);
+            spilled = true;
+            bufpointer = p;
+            fillBuffer();
+            buf = buffer; start = p = 0; n = bytesRead;
+            if (n == -1) return RECORD_END;
+        }
+        if (spilled) view.append(buf, start, p - start);
+        else view.set(buf, start, p - start);
+        return endField(p, delimiter);
+    }
+
+//    Refills the buffer if it is consumed and skips the '\n' of a "\r\n" line break
+//    which was split by a refill, returns false at the end of input
+    private boolean fillLine() throws IOException{
+        if (bufpointer >= bytesRead){
+            fillBuffer();
+            if (bytesRead == -1) return false;
+        }
+        if (pendingLineFeed){
+            pendingLineFeed = false;
+            if (buffer[bufpointer] == '\n' && ++bufpointer >= bytesRead){
+                fillBuffer();
+                return bytesRead != -1;
+            }
+        }
+        return true;
+    }
+
+//    Consumes the delimiter or line break at p, a "\r\n" line break as a whole
+    private int endField(int p, int delimiter){
+        byte terminator = buffer[p];
+        bufpointer = p + 1;
+        if (terminator == delimiter) return FIELD_END;
+        if (terminator == '\r'){
+            if (bufpointer >= bytesRead) pendingLineFeed = true;
+            else if (buffer[bufpointer] == '\n') bufpointer++;
         }
-        return sb.toString();
+        return RECORD_END;
+    }
+
+    /**
+     *  Returns the next word in the input stream, returning the same String
+     *  instance for words cached by the provided interner. A String is created,
+     *  decoded with the charset of the scanner, only for the words which are not cached.
+     *
+     *  @param interner cache of the frequent words
+     *  @return the next word in the input stream
+     *  @throws NoSuchElementException
+     *          if the end of input is reached
+     *  @throws IOException
+     *          if the object is closed or i/o error occurs
+     * */
+    public String next(@NotNull TokenInterner interner) throws IOException{
+        if (!nextToken(tokenView)) throw new NoSuchElementException();
+        return interner.intern(tokenView, charset);
     }
 
     /**
@@ -186,14 +1080,9 @@ public class FastScanner {
      *          if object is closed or i/o error occurs
      * */
     public int nextIntFast() throws IOException{
-        int[] tmp = skipNonNumerics();
-        int c = tmp[0];
-
-        int value = 0;
-        do value = value * 10 + c - '0';
-        while ((c=read()) > ' ');
-
-        return value*tmp[1];
+        count(ScannerMetrics.Token.INT);
+        if (cache != null && cache.integers()) return (int) cache.nextLong();
+        return (int) parseLongFast(tokenStart());
     }
 
     /**
@@ -208,17 +1097,13 @@ public class FastScanner {
      *          if object is closed or i/o error occurs
      * */
     public int nextIntStrict() throws IOException{
-        int[] tmp = skipNonCharacters();
-        int c = tmp[0];
-
-        int value = 0;
-        do {
-            if (c < '0' || c > '9') throw new InputMismatchException();
-            value = value * 10 + c - '0';
-            if (value < 0) throw new InputMismatchException();
-        }while ((c=read()) > ' ');
-
-        return value*tmp[1];
+        count(ScannerMetrics.Token.INT);
+        try {
+            if (cache != null && cache.integers()) return (int) cache.nextInteger(Integer.MAX_VALUE);
+            return parseIntStrict(tokenStart());
+        } catch (InputMismatchException e){
+            throw mismatch(e, ScannerMetrics.Token.INT);
+        }
     }
 
     /**
@@ -231,24 +1116,13 @@ public class FastScanner {
      *          if object is closed or i/o error occurs
      * */
     public double nextDoubleFast() throws IOException{
-        int sign = 1;
-        byte c = read();
-        while (c <= ' ') c = read();
-        if (c == '-'){
-            c = read();
-            sign = -1;
-        }
-
-        double value = 0;
-        do value = value * 10 + c - '0';
-        while ((c=read()) > ' ' && c != '.');
-
-        if (c == '.'){
-            double d = 1;
-            while ((c=read()) > ' ') value = value + (c - '0')/(d*=10);
-        }
+        count(ScannerMetrics.Token.DOUBLE);
+        if (cache != null) return cache.nextDouble();
+        return parseDoubleFast(tokenStart());
+    }
 
-        return value*sign;
+    private double parseDoubleFast(int c) throws IOException{
+        return parseDouble(c, false);
     }
 
     /**
@@ -264,35 +1138,109 @@ public class FastScanner {
      *          if object is closed or i/o error occurs
      * */
     public double nextDoubleStrict() throws IOException{
-        int sign = 1;
-        byte c = read();
-        while (c <= ' ') c = read();
-        if (c != '-' && (c < '0' || c > '9')) throw new InputMismatchException();
-        if (c == '-'){
-            c = read();
-            sign = -1;
+        count(ScannerMetrics.Token.DOUBLE);
+        try {
+            if (cache != null) return cache.nextDouble();
+            return parseDoubleStrict(tokenStart());
+        } catch (InputMismatchException e){
+            throw mismatch(e, ScannerMetrics.Token.DOUBLE);
         }
+    }
+
+    private double parseDoubleStrict(int c) throws IOException{
+        return parseDouble(c, true);
+    }
 
-        long value = 0, precision = 0;
-        do{
-            if (precision != 0){ if (c == '.') throw new InputMismatchException();
-                precision++;
+//    Plain decimals lying in the buffer are converted in a single pass, any other
+//    token is handed to the DoubleParser which also validates it in strict mode.
+    private double parseDouble(int c, boolean strict) throws IOException{
+        int end = scanDecimal(c);
+        if (end >= 0){
+            double value = DoubleParser.toDouble(decimalSignificand, decimalExponent);
+            if (value >= 0){
+                bufpointer = end;
+                return decimalNegative ? -value : value;
             }
-            if (c == '.'){ precision++; continue; }
-            if (c < '0' || c > '9') throw new InputMismatchException();
-            value = value * 10 + c - '0';
         }
-        while ((c=read()) > ' ');
+        TokenView token = scanToken(tokenView);
+        return DoubleParser.parseDouble(token.array(), token.offset(), token.length(), strict);
+    }
 
-//        if (c == '.'){
-//            double d = 1;
-//            while ((c=read()) > ' '){
-//                if (c < '0' || c > '9') throw new InputMismatchException();
-//                value = value + (c - '0')/(d*=10);
-//            }
-//        }
+    private float parseFloat(int c, boolean strict) throws IOException{
+        int end = scanDecimal(c);
+        if (end >= 0){
+            float value = DoubleParser.toFloat(decimalSignificand, decimalExponent);
+            if (value >= 0){
+                bufpointer = end;
+                return decimalNegative ? -value : value;
+            }
+        }
+        TokenView token = scanToken(tokenView);
+        return DoubleParser.parseFloat(token.array(), token.offset(), token.length(), strict);
+    }
 
-        return value/Math.pow(10, precision)*sign;
+//    Scan the decimal token starting with byte c in one pass into the decimal fields.
+//    Returns the buffer position after the token, or -1 without moving the position
+//    if the token crosses the buffer end, has more than 19 digits or is not a plain
+//    decimal number ending at a separator, bytes of non-ASCII characters being token bytes.
+    private int scanDecimal(int c){
+        byte[] buf = buffer;
+        int p = bufpointer, n = bytesRead;
+        boolean negative = c == '-';
+        if (negative || c == '+'){
+            if (p >= n) return -1;
+            c = buf[p++];
+        }
+
+        long significand = 0;
+        int digits = 0, exponent = 0, d;
+        while ((d = c - '0') >= 0 && d <= 9){
+            significand = significand * 10 + d;
+            digits++;
+            if (p >= n) return -1;
+            c = buf[p++];
+        }
+        if (c == '.'){
+            if (p >= n) return -1;
+            c = buf[p++];
+            while ((d = c - '0') >= 0 && d <= 9){
+                significand = significand * 10 + d;
+                digits++;
+                exponent--;
+                if (p >= n) return -1;
+                c = buf[p++];
+            }
+        }
+        if (digits == 0 || digits > 19) return -1;
+
+        decimalSignificand = significand;
+        decimalExponent = exponent;
+        decimalNegative = negative;
+        if (c == 'e' || c == 'E') return scanExponent(p);
+        return c >= 0 && c <= ' ' ? p : -1;
+    }
+
+//    Scan the exponent of the decimal after the 'e' at position p-1 into decimalExponent
+    private int scanExponent(int p){
+        byte[] buf = buffer;
+        int n = bytesRead;
+        if (p >= n) return -1;
+        int c = buf[p++];
+        boolean negative = c == '-';
+        if (negative || c == '+'){
+            if (p >= n) return -1;
+            c = buf[p++];
+        }
+
+        int explicit = 0, digits = 0, d;
+        while ((d = c - '0') >= 0 && d <= 9){
+            explicit = explicit * 10 + d;
+            if (++digits > 4 || p >= n) return -1;
+            c = buf[p++];
+        }
+        if (digits == 0 || c < 0 || c > ' ') return -1;
+        decimalExponent += negative ? -explicit : explicit;
+        return p;
     }
 
     /**
@@ -314,6 +1262,7 @@ public class FastScanner {
 
      * */
     public double nextNumberInText() throws IOException, TypeNotPresentException{
+        count(ScannerMetrics.Token.NUMBER);
         int sign = 1;
         byte c = read();
         while (c < '0' || c > '9'){
@@ -346,7 +1295,8 @@ public class FastScanner {
      *          if the object is closed or i/o error occurs
      * */
     public float nextFloatFast() throws IOException{
-        return (float) nextDoubleFast();
+        count(ScannerMetrics.Token.FLOAT);
+        return parseFloat(tokenStart(), false);
     }
 
     /**
@@ -359,39 +1309,902 @@ public class FastScanner {
      *          if object is closed or i/o error occurs
      * */
     public float nextFloatStrict() throws IOException{
-        return (float) nextDoubleStrict();
+        count(ScannerMetrics.Token.FLOAT);
+        try {
+            return parseFloat(tokenStart(), true);
+        } catch (InputMismatchException e){
+            throw mismatch(e, ScannerMetrics.Token.FLOAT);
+        }
     }
 
     public long nextLongFast() throws IOException{
-        int[] tmp = skipNonNumerics();
-        int c = tmp[0];
+        count(ScannerMetrics.Token.LONG);
+        if (cache != null && cache.integers()) return cache.nextLong();
+        return parseLongFast(tokenStart());
+    }
 
-        long value = 0;
-        do value = value * 10 + c - '0';
-        while ((c=read()) > ' ');
+    public long nextLongStrict() throws IOException{
+        count(ScannerMetrics.Token.LONG);
+        try {
+            if (cache != null && cache.integers()) return cache.nextLong();
+            return parseLongStrict(tokenStart());
+        } catch (InputMismatchException e){
+            throw mismatch(e, ScannerMetrics.Token.LONG);
+        }
+    }
 
-        return value*tmp[1];
+    public long nextShortFast() throws IOException{
+        count(ScannerMetrics.Token.SHORT);
+        if (cache != null && cache.integers()) return (short) cache.nextLong();
+        return (short) parseLongFast(tokenStart());
     }
 
-    public long nextLongStrict() throws IOException{
-        int[] tmp = skipNonCharacters();
-        int c = tmp[0];
+    public short nextShortStrict() throws IOException{
+        count(ScannerMetrics.Token.SHORT);
+        try {
+            if (cache != null && cache.integers()) return (short) cache.nextInteger(Short.MAX_VALUE);
+            return toShortStrict(parseIntStrict(tokenStart()));
+        } catch (InputMismatchException e){
+            throw mismatch(e, ScannerMetrics.Token.SHORT);
+        }
+    }
 
-        long value = 0;
-        do {
-            if (c < '0' || c > '9') throw new InputMismatchException();
-            value = value * 10 + c - '0';
-            if (value < 0) throw new InputMismatchException();
-        }while ((c=read()) > ' ');
+    /**
+     *  Reads the next integer of any size without validating the digits, the
+     *  token is expected to be an integer with an optional minus sign like for
+     *  <tt>nextLongFast()</tt>.
+     *
+     *  @return the integer value read from input
+     *  @throws NoSuchElementException
+     *          if the end of input is reached
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public BigInteger nextBigIntegerFast() throws IOException{
+        count(ScannerMetrics.Token.BIG_INTEGER);
+        tokenStart();
+        TokenView token = scanToken(tokenView);
+        return BigNumberParser.parseBigInteger(token.array(), token.offset(), token.length(), false);
+    }
 
-        return value*tmp[1];
+    /**
+     *  Reads and validates the next integer of any size, an optional minus sign
+     *  followed by decimal digits. Long digit strings are converted in time
+     *  subquadratic in their length.
+     *
+     *  @return the integer value read from input
+     *  @throws InputMismatchException
+     *          if the next token does not match the Integer regular expression
+     *  @throws NoSuchElementException
+     *          if the end of input is reached
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public BigInteger nextBigIntegerStrict() throws IOException{
+        count(ScannerMetrics.Token.BIG_INTEGER);
+        tokenStart();
+        TokenView token = scanToken(tokenView);
+        try {
+            return BigNumberParser.parseBigInteger(token.array(), token.offset(), token.length(), true);
+        } catch (InputMismatchException e){
+            throw mismatch(e, ScannerMetrics.Token.BIG_INTEGER);
+        }
     }
 
-    public long nextShortFast() throws IOException{
-        return (short) nextIntFast();
+    /**
+     *  Reads the next decimal number exactly, without validating its format. The
+     *  scale of the value is the number of fraction digits less the exponent, so
+     *  <code>1.50</code> is read with scale 2 and <code>15e3</code> with scale -3.
+     *
+     *  @return the decimal value read from input
+     *  @throws InputMismatchException
+     *          if the exponent makes the scale exceed the int range
+     *  @throws NoSuchElementException
+     *          if the end of input is reached
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public BigDecimal nextBigDecimalFast() throws IOException{
+        count(ScannerMetrics.Token.BIG_DECIMAL);
+        tokenStart();
+        TokenView token = scanToken(tokenView);
+        return BigNumberParser.parseBigDecimal(token.array(), token.offset(), token.length(), false);
     }
 
-    public short nextShortStrict() throws IOException{
-        return (short) nextIntStrict();
+    /**
+     *  Reads and validates the next decimal number exactly, in the format read by
+     *  <tt>nextDoubleStrict()</tt> except for NaN and Infinity, see <tt>nextBigDecimalFast()</tt>.
+     *
+     *  @return the decimal value read from input
+     *  @throws InputMismatchException
+     *          if the next token does not match the decimal number format, or the
+     *          exponent makes the scale exceed the int range
+     *  @throws NoSuchElementException
+     *          if the end of input is reached
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public BigDecimal nextBigDecimalStrict() throws IOException{
+        count(ScannerMetrics.Token.BIG_DECIMAL);
+        tokenStart();
+        TokenView token = scanToken(tokenView);
+        try {
+            return BigNumberParser.parseBigDecimal(token.array(), token.offset(), token.length(), true);
+        } catch (InputMismatchException e){
+            throw mismatch(e, ScannerMetrics.Token.BIG_DECIMAL);
+        }
+    }
+
+    /**
+     *  Reads and validates the next integer like <tt>nextIntStrict()</tt>, but
+     *  returns the status instead of throwing. A malformed or out of range token
+     *  is consumed, reported with its position in the result and to the reject
+     *  sink, and the next call reads the next token.
+     *
+     *  @param result result to store the value or the rejected token in
+     *  @return the status of the parse, also held by the result
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     *  @see #useRejectSink(ParseResult.RejectSink)
+     * */
+    public ParseResult.Status tryNextInt(@NotNull ParseResult result) throws IOException{
+        count(ScannerMetrics.Token.INT);
+        return tryNextInteger(result, Integer.MAX_VALUE, ScannerMetrics.Token.INT);
+    }
+
+    /**
+     *  Reads and validates the next long value like <tt>nextLongStrict()</tt>,
+     *  but returns the status instead of throwing, see <tt>tryNextInt()</tt>.
+     *
+     *  @param result result to store the value or the rejected token in
+     *  @return the status of the parse, also held by the result
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public ParseResult.Status tryNextLong(@NotNull ParseResult result) throws IOException{
+        count(ScannerMetrics.Token.LONG);
+        return tryNextInteger(result, Long.MAX_VALUE, ScannerMetrics.Token.LONG);
+    }
+
+    /**
+     *  Reads and validates the next double value like <tt>nextDoubleStrict()</tt>,
+     *  but returns the status instead of throwing, see <tt>tryNextInt()</tt>.
+     *
+     *  @param result result to store the value or the rejected token in
+     *  @return the status of the parse, also held by the result
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public ParseResult.Status tryNextDouble(@NotNull ParseResult result) throws IOException{
+        count(ScannerMetrics.Token.DOUBLE);
+        int c = tryStart(result);
+        if (c == -1) return ParseResult.Status.END_OF_INPUT;
+        int end = scanDecimal(c);
+        if (end >= 0){
+            double value = DoubleParser.toDouble(decimalSignificand, decimalExponent);
+            if (value >= 0){
+                bufpointer = end;
+                return result.ok(decimalNegative ? -value : value);
+            }
+        }
+        TokenView token = scanToken(tokenView);
+        long bits = DoubleParser.parseDoubleChecked(token.array(), token.offset(), token.length());
+        if (bits == DoubleParser.INVALID) return reject(result, ParseResult.Status.INVALID, token, ScannerMetrics.Token.DOUBLE);
+        return result.ok(Double.longBitsToDouble(bits));
+    }
+
+//    Skips to the next token for a try method and returns its first byte, or -1 at the end of input
+    private int tryStart(ParseResult result) throws IOException{
+        if (cache != null) leaveCache();
+        trackLines = true;
+        int c = skipSeparators();
+        if (c == -1) result.end(bufferOffset);
+        else result.start(bufferOffset + bufpointer - 1);
+        return c;
+    }
+
+    private ParseResult.Status tryNextInteger(ParseResult result, long limit, ScannerMetrics.Token type) throws IOException{
+        int c = tryStart(result);
+        if (c == -1) return ParseResult.Status.END_OF_INPUT;
+        boolean negative = c == '-';
+        long max = negative ? limit + 1 : limit, value = 0;
+        // up to 18 digits lying in the buffer are converted 8 at a time, other tokens are checked byte by byte
+        byte[] buf = buffer;
+        int p = negative ? bufpointer : bufpointer - 1, n = bytesRead, digits = 0, len;
+        while (p <= n - 8 && digits <= 10){
+            long word = wordAt(buf, p);
+            if ((len = Swar.leadingDigits(word)) == 0) break;
+            value = value * Swar.POW10[len] + Swar.digits(word, len);
+            digits += len;
+            p += len;
+            if (len < 8){
+                if (buf[p] >= 0 && buf[p] <= ' ' && Long.compareUnsigned(value, max) <= 0){
+                    bufpointer = p + 1;
+                    return result.ok(negative ? -value : value);
+                }
+                break;
+            }
+        }
+        value = 0;
+        TokenView token = scanToken(tokenView);
+        byte[] b = token.array();
+        int i = token.offset(), end = i + token.length();
+        if (negative) i++;
+        if (i == end) return reject(result, ParseResult.Status.INVALID, token, type);
+        boolean overflow = false;
+        for (; i < end; i++){
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return reject(result, ParseResult.Status.INVALID, token, type);
+            // magnitudes below 10^17 take another digit without overflowing, see appendDigits()
+            if (Long.compareUnsigned(value, SAFE_MAGNITUDE[1]) >= 0 && Long.compareUnsigned(value, Long.divideUnsigned(max - d, 10)) > 0)
+                overflow = true;
+            else value = value * 10 + d;
+        }
+        if (overflow || Long.compareUnsigned(value, max) > 0) return reject(result, ParseResult.Status.OUT_OF_RANGE, token, type);
+        return result.ok(negative ? -value : value);
+    }
+
+//    Reports the token just scanned as rejected, with the line and column of its first byte
+    private ParseResult.Status reject(ParseResult result, ParseResult.Status status, TokenView token,
+                                      ScannerMetrics.Token type) throws IOException{
+        // no line feed lies between the token start and the separator after it
+        countLines(bytesRead == -1 ? 0 : bufpointer - 1);
+        if (lineCount < 0) result.reject(status, -1, -1, token, charset);
+        else result.reject(status, lineCount + 1, result.offset() - lineStart + 1, token, charset);
+        if (metrics != null) metrics.mismatch(type);
+        if (rejects != null) rejects.reject(result);
+        return status;
+    }
+
+//    Counts the line feeds of buffer[linesCounted, end) for the positions reported by the try methods
+    private void countLines(int end){
+        if (lineCount < 0) return;
+        byte[] buf = buffer;
+        int p = linesCounted;
+        while (p <= end - 8){
+            long feeds = Swar.exactEqualBytes(wordAt(buf, p), LINE_FEEDS);
+            if (feeds != 0){
+                lineCount += Long.bitCount(feeds);
+                lineStart = bufferOffset + p + ((63 - Long.numberOfLeadingZeros(feeds)) >>> 3) + 1;
+            }
+            p += 8;
+        }
+        for (; p < end; p++){
+            if (buf[p] == '\n'){
+                lineCount++;
+                lineStart = bufferOffset + p + 1;
+            }
+        }
+        linesCounted = end;
+    }
+
+    /**
+     *  Reads up to <code>len</code> integers into <code>dst</code> starting
+     *  at index <code>off</code>. Like <tt>nextIntFast()</tt> the input is
+     *  expected to contain integers only and is not validated.<br>
+     *  The values are parsed in a single allocation-free loop over the
+     *  internal buffer, which is much faster than calling
+     *  <tt>nextIntFast()</tt> for every value of a large input.
+     *
+     *  @param dst array to store the values in
+     *  @param off index in <code>dst</code> of the first value
+     *  @param len maximum number of values to read
+     *  @return the number of values read, less than <code>len</code> only
+     *          if the end of input is reached
+     *  @throws IndexOutOfBoundsException
+     *          if <code>off</code> and <code>len</code> are out of the array bounds
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public int readIntsFast(int[] dst, int off, int len) throws IOException{
+        checkRange(dst.length, off, len);
+        if (cache != null && cache.integers()) return count(ScannerMetrics.Token.INT, cache.readInts(dst, off, len, 0));
+        for (int i = off, end = off + len; i < end; i++){
+            int c = skipSeparators();
+            if (c == -1) return count(ScannerMetrics.Token.INT, i - off);
+            dst[i] = (int) parseLongFast(c);
+        }
+        return count(ScannerMetrics.Token.INT, len);
+    }
+
+    /**
+     *  Works similarly to the <tt>readIntsFast()</tt> method but validates
+     *  every value like the <tt>nextIntStrict()</tt> method.
+     *
+     *  @param dst array to store the values in
+     *  @param off index in <code>dst</code> of the first value
+     *  @param len maximum number of values to read
+     *  @return the number of values read, less than <code>len</code> only
+     *          if the end of input is reached
+     *  @throws InputMismatchException
+     *          if a token does not match the Integer
+     *          regular expression, or is out of range
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public int readIntsStrict(int[] dst, int off, int len) throws IOException{
+        checkRange(dst.length, off, len);
+        int i = off;
+        try {
+            if (cache != null && cache.integers()){
+                long first = cache.index();
+                try {
+                    return count(ScannerMetrics.Token.INT, cache.readInts(dst, off, len, Integer.MAX_VALUE));
+                } finally {
+                    i = off + (int) (cache.index() - first);
+                }
+            }
+            for (int end = off + len; i < end; i++){
+                int c = skipSeparators();
+                if (c == -1) return count(ScannerMetrics.Token.INT, i - off);
+                dst[i] = parseIntStrict(c);
+            }
+            return count(ScannerMetrics.Token.INT, len);
+        } catch (InputMismatchException e){
+            count(ScannerMetrics.Token.INT, i - off + 1);
+            throw mismatch(e, ScannerMetrics.Token.INT);
+        }
+    }
+
+    /**
+     *  Reads up to <code>len</code> long values into <code>dst</code>
+     *  without validating them, see <tt>readIntsFast()</tt>.
+     *
+     *  @return the number of values read, less than <code>len</code> only
+     *          if the end of input is reached
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public int readLongsFast(long[] dst, int off, int len) throws IOException{
+        checkRange(dst.length, off, len);
+        if (cache != null && cache.integers()) return count(ScannerMetrics.Token.LONG, cache.readLongs(dst, off, len));
+        for (int i = off, end = off + len; i < end; i++){
+            int c = skipSeparators();
+            if (c == -1) return count(ScannerMetrics.Token.LONG, i - off);
+            dst[i] = parseLongFast(c);
+        }
+        return count(ScannerMetrics.Token.LONG, len);
+    }
+
+    /**
+     *  Reads up to <code>len</code> long values into <code>dst</code>
+     *  validating each of them, see <tt>readIntsStrict()</tt>.
+     *
+     *  @return the number of values read, less than <code>len</code> only
+     *          if the end of input is reached
+     *  @throws InputMismatchException
+     *          if a token does not match the Long
+     *          regular expression, or is out of range
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public int readLongsStrict(long[] dst, int off, int len) throws IOException{
+        checkRange(dst.length, off, len);
+        if (cache != null && cache.integers()) return count(ScannerMetrics.Token.LONG, cache.readLongs(dst, off, len));
+        int i = off;
+        try {
+            for (int end = off + len; i < end; i++){
+                int c = skipSeparators();
+                if (c == -1) return count(ScannerMetrics.Token.LONG, i - off);
+                dst[i] = parseLongStrict(c);
+            }
+            return count(ScannerMetrics.Token.LONG, len);
+        } catch (InputMismatchException e){
+            count(ScannerMetrics.Token.LONG, i - off + 1);
+            throw mismatch(e, ScannerMetrics.Token.LONG);
+        }
+    }
+
+    /**
+     *  Reads up to <code>len</code> short values into <code>dst</code>
+     *  without validating them, see <tt>readIntsFast()</tt>.
+     *
+     *  @return the number of values read, less than <code>len</code> only
+     *          if the end of input is reached
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public int readShortsFast(short[] dst, int off, int len) throws IOException{
+        checkRange(dst.length, off, len);
+        if (cache != null && cache.integers()) return count(ScannerMetrics.Token.SHORT, cache.readShorts(dst, off, len, 0));
+        for (int i = off, end = off + len; i < end; i++){
+            int c = skipSeparators();
+            if (c == -1) return count(ScannerMetrics.Token.SHORT, i - off);
+            dst[i] = (short) parseLongFast(c);
+        }
+        return count(ScannerMetrics.Token.SHORT, len);
+    }
+
+    /**
+     *  Reads up to <code>len</code> short values into <code>dst</code>
+     *  validating each of them, see <tt>readIntsStrict()</tt>.
+     *
+     *  @return the number of values read, less than <code>len</code> only
+     *          if the end of input is reached
+     *  @throws InputMismatchException
+     *          if a token does not match the Short
+     *          regular expression, or is out of range
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public int readShortsStrict(short[] dst, int off, int len) throws IOException{
+        checkRange(dst.length, off, len);
+        int i = off;
+        try {
+            if (cache != null && cache.integers()){
+                long first = cache.index();
+                try {
+                    return count(ScannerMetrics.Token.SHORT, cache.readShorts(dst, off, len, Short.MAX_VALUE));
+                } finally {
+                    i = off + (int) (cache.index() - first);
+                }
+            }
+            for (int end = off + len; i < end; i++){
+                int c = skipSeparators();
+                if (c == -1) return count(ScannerMetrics.Token.SHORT, i - off);
+                dst[i] = toShortStrict(parseIntStrict(c));
+            }
+            return count(ScannerMetrics.Token.SHORT, len);
+        } catch (InputMismatchException e){
+            count(ScannerMetrics.Token.SHORT, i - off + 1);
+            throw mismatch(e, ScannerMetrics.Token.SHORT);
+        }
+    }
+
+    /**
+     *  Reads up to <code>len</code> double values into <code>dst</code>
+     *  without validating them, see <tt>nextDoubleFast()</tt>.
+     *
+     *  @return the number of values read, less than <code>len</code> only
+     *          if the end of input is reached
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public int readDoublesFast(double[] dst, int off, int len) throws IOException{
+        checkRange(dst.length, off, len);
+        if (cache != null) return count(ScannerMetrics.Token.DOUBLE, cache.readDoubles(dst, off, len));
+        for (int i = off, end = off + len; i < end; i++){
+            int c = skipSeparators();
+            if (c == -1) return count(ScannerMetrics.Token.DOUBLE, i - off);
+            dst[i] = parseDoubleFast(c);
+        }
+        return count(ScannerMetrics.Token.DOUBLE, len);
+    }
+
+    /**
+     *  Reads up to <code>len</code> double values into <code>dst</code>
+     *  validating each of them, see <tt>nextDoubleStrict()</tt>.
+     *
+     *  @return the number of values read, less than <code>len</code> only
+     *          if the end of input is reached
+     *  @throws InputMismatchException
+     *          if a token does not match the decimal number format
+     *  @throws IOException
+     *          if object is closed or i/o error occurs
+     * */
+    public int readDoublesStrict(double[] dst, int off, int len) throws IOException{
+        checkRange(dst.length, off, len);
+        if (cache != null) return count(ScannerMetrics.Token.DOUBLE, cache.readDoubles(dst, off, len));
+        int i = off;
+        try {
+            for (int end = off + len; i < end; i++){
+                int c = skipSeparators();
+                if (c == -1) return count(ScannerMetrics.Token.DOUBLE, i - off);
+                dst[i] = parseDoubleStrict(c);
+            }
+            return count(ScannerMetrics.Token.DOUBLE, len);
+        } catch (InputMismatchException e){
+            count(ScannerMetrics.Token.DOUBLE, i - off + 1);
+            throw mismatch(e, ScannerMetrics.Token.DOUBLE);
+        }
+    }
+
+    /**
+     *  Returns a stream of the remaining integers in the input stream, each of
+     *  them validated like <tt>nextIntStrict()</tt>. The values are not boxed.<br>
+     *  For file and memory mapped sources a parallel stream splits the remaining
+     *  file at token boundaries and parses the parts concurrently, other sources
+     *  are read sequentially in batches. The scanner must not be used while the
+     *  stream is consumed, and is at the end of input once a parallel stream is split.
+     *
+     *  @return a stream of the remaining integers
+     *  @throws InputMismatchException
+     *          while consuming the stream if a token does not match the Integer
+     *          regular expression, or is out of range
+     *  @throws UncheckedIOException
+     *          while consuming the stream if i/o error occurs
+     * */
+    public IntStream ints(){
+        if (cache != null && cache.integers()) return cache.ints();
+        leaveCacheUnchecked();
+        return StreamSupport.intStream(new TokenSpliterator.Ints(this), false);
+    }
+
+    /**
+     *  Returns a stream of the remaining long values in the input stream, each
+     *  of them validated like <tt>nextLongStrict()</tt>, see <tt>ints()</tt>.
+     *
+     *  @return a stream of the remaining long values
+     *  @throws InputMismatchException
+     *          while consuming the stream if a token does not match the Long
+     *          regular expression, or is out of range
+     *  @throws UncheckedIOException
+     *          while consuming the stream if i/o error occurs
+     * */
+    public LongStream longs(){
+        if (cache != null && cache.integers()) return cache.longs();
+        leaveCacheUnchecked();
+        return StreamSupport.longStream(new TokenSpliterator.Longs(this), false);
+    }
+
+    /**
+     *  Returns a stream of the remaining double values in the input stream, each
+     *  of them validated like <tt>nextDoubleStrict()</tt>, see <tt>ints()</tt>.
+     *
+     *  @return a stream of the remaining double values
+     *  @throws InputMismatchException
+     *          while consuming the stream if a token does not match the decimal number format
+     *  @throws UncheckedIOException
+     *          while consuming the stream if i/o error occurs
+     * */
+    public DoubleStream doubles(){
+        if (cache != null) return cache.doubles();
+        return StreamSupport.doubleStream(new TokenSpliterator.Doubles(this), false);
+    }
+
+//    Leaves a cache which does not serve the stream before the text is split
+    private void leaveCacheUnchecked(){
+        if (cache == null) return;
+        try {
+            leaveCache();
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A builder of <code>FastScanner</code> objects, see {@link FastScanner#builder()}.
+     * A builder can be reused to build any number of scanners with the same settings.
+     */
+    public static final class Builder {
+
+        private int bufferSize, maxBufferSize;
+        private BufferPool pool;
+        private boolean memoryMapped;
+        private ThreadFactory threadFactory;
+        private Charset charset = StandardCharsets.UTF_8;
+        private ScannerMetrics metrics;
+        private boolean decompress, parseCache, follow;
+        private long followTimeout;
+        private int decompressThreads = Runtime.getRuntime().availableProcessors();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the initial size of the buffer, 8 KB by default and 64 KB in prefetch mode.
+         *
+         * @param size size of the buffer in bytes, at least 16
+         * @return this builder
+         */
+        public Builder bufferSize(int size) {
+            if (size < MIN_BUFFER_SIZE || size > MAX_BUFFER_SIZE) throw new IllegalArgumentException("Invalid buffer size: " + size);
+            bufferSize = size;
+            return this;
+        }
+
+        /**
+         * Lets the buffer grow up to the given size. The buffer doubles once several
+         * consecutive reads filled it, so scanners over small inputs keep a small
+         * buffer while scanners over large files and fast streams move to fewer and
+         * larger reads. By default the buffer does not grow.
+         *
+         * @param size maximum size of the buffer in bytes
+         * @return this builder
+         */
+        public Builder maxBufferSize(int size) {
+            if (size < MIN_BUFFER_SIZE || size > MAX_BUFFER_SIZE) throw new IllegalArgumentException("Invalid buffer size: " + size);
+            maxBufferSize = size;
+            return this;
+        }
+
+        /**
+         * Takes the buffers of the scanners from the pool and returns them to it
+         * on <tt>close()</tt>. Pooled buffers are rounded up to a power of two.
+         * Scanners in prefetch mode cannot be pooled.
+         *
+         * @param pool the pool, such as {@link BufferPool#shared()}, or <code>null</code>
+         *             to allocate the buffer of every scanner
+         * @return this builder
+         */
+        public Builder bufferPool(BufferPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Reads files in memory mapped mode, see {@link FastScanner#FastScanner(Path, boolean)}.
+         *
+         * @param memoryMapped <code>true</code> to map files instead of reading them as InputStream
+         * @return this builder
+         */
+        public Builder memoryMapped(boolean memoryMapped) {
+            this.memoryMapped = memoryMapped;
+            return this;
+        }
+
+        /**
+         * Reads the input in background prefetch mode, see
+         * {@link FastScanner#FastScanner(InputStream, ThreadFactory)}.
+         *
+         * @param threadFactory factory for the background reading thread, or
+         *                      <code>null</code> to read on the calling thread
+         * @return this builder
+         */
+        public Builder prefetch(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Sets the charset of the Strings returned by the scanners, see {@link FastScanner#useCharset(Charset)}.
+         *
+         * @param charset the charset of the input
+         * @return this builder
+         */
+        public Builder charset(@NotNull Charset charset) {
+            this.charset = Objects.requireNonNull(charset, "Charset cannot be null");
+            return this;
+        }
+
+        /**
+         * Counts the reads and tokens of the scanners in the metrics, see {@link FastScanner#useMetrics(ScannerMetrics)}.
+         *
+         * @param metrics metrics shared by the scanners, or <code>null</code> not to count
+         * @return this builder
+         */
+        public Builder metrics(ScannerMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Decompresses gzip, zlib and zip input, detected from its first bytes; other
+         * input is read as it is. Zip entries are read one after another, separated by
+         * a line feed.<br>
+         * Compressed input is inflated on a background thread, the prefetch thread if
+         * set or a daemon thread otherwise, into the ring of buffers which the scanner
+         * parses, so inflating and parsing run in parallel. The members of a gzip file
+         * made of several concatenated members are moreover inflated in parallel, see
+         * {@link #decompressThreads(int)}. Compressed input is never read into a pooled
+         * buffer.
+         *
+         * @param decompress <code>true</code> to detect and decompress compressed input
+         * @return this builder
+         */
+        public Builder decompress(boolean decompress) {
+            this.decompress = decompress;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads which inflate the members of a gzip file in
+         * parallel, the number of available processors by default. With a single
+         * thread a file is inflated like a stream.
+         *
+         * @param threads number of threads inflating a gzip file
+         * @return this builder
+         */
+        public Builder decompressThreads(int threads) {
+            if (threads <= 0) throw new IllegalArgumentException("Invalid number of threads: " + threads);
+            decompressThreads = threads;
+            return this;
+        }
+
+        /**
+         * Writes a {@link ParseCache} sidecar of every file a scanner is built for
+         * which has no up to date sidecar, so the numbers of the file are parsed once
+         * and read from the sidecar by this and later scanners. Files with an up to
+         * date sidecar are always read from it, unless they are decompressed.
+         *
+         * @param parseCache <code>true</code> to write missing and outdated sidecars
+         * @return this builder
+         */
+        public Builder parseCache(boolean parseCache) {
+            this.parseCache = parseCache;
+            return this;
+        }
+
+        /**
+         * Follows files which are appended to, such as logs, like <tt>tail -f</tt>. At the
+         * end of the file a scanner waits until the file grows instead of reaching the end
+         * of input, so <tt>hasNext()</tt> blocks until the next token is written. The wait
+         * is woken by a {@link java.nio.file.WatchService} on the directory of the file,
+         * bounded by a poll interval of at most 256 ms. A truncated file is read again from
+         * its start, and a file replaced by log rotation is read to its end before the new
+         * file is read. Only files are followed; followed files are neither memory mapped,
+         * decompressed nor read from a parse cache. Interrupting the reading thread ends a wait.
+         *
+         * @param follow <code>true</code> to follow files
+         * @return this builder
+         * @see #followTimeout(long, TimeUnit)
+         */
+        public Builder follow(boolean follow) {
+            this.follow = follow;
+            return this;
+        }
+
+        /**
+         * Sets how long a followed file may stay unchanged before the scanner reaches
+         * the end of input, by default it waits forever.
+         *
+         * @param timeout time to wait for the file to grow, 0 to wait forever
+         * @param unit    unit of the timeout
+         * @return this builder
+         */
+        public Builder followTimeout(long timeout, @NotNull TimeUnit unit) {
+            if (timeout < 0) throw new IllegalArgumentException("Invalid timeout: " + timeout);
+            followTimeout = unit.toNanos(timeout);
+            return this;
+        }
+
+        /**
+         * Builds a scanner which reads from the provided input stream.
+         *
+         * @param in Input Stream to read from
+         * @return the scanner
+         * @throws UncheckedIOException if decompressing and the first bytes cannot be read
+         * @throws IllegalStateException if both a buffer pool and prefetch mode are set
+         */
+        public FastScanner build(@NotNull InputStream in) {
+            Objects.requireNonNull(in, "Data Input Stream cannot be null");
+            checkSettings();
+            return decompress ? createDetected(in) : create(in);
+        }
+
+        /**
+         * Builds a scanner which reads from the UTF-8 encoding of the provided String.
+         *
+         * @param string String to read from
+         * @return the scanner
+         * @throws IllegalStateException if both a buffer pool and prefetch mode are set
+         */
+        public FastScanner build(@NotNull String string) {
+            Objects.requireNonNull(string, "Data Input Stream cannot be null");
+            checkSettings();
+            return create(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        /**
+         * Builds a scanner which reads from the provided file, memory mapped if set.
+         *
+         * @param path Path object of file to read from
+         * @return the scanner
+         * @throws IOException if the file cannot be opened or mapped
+         * @throws IllegalStateException if both a buffer pool and prefetch mode are set,
+         *                               or a followed file is mapped, decompressed or cached
+         */
+        public FastScanner build(@NotNull Path path) throws IOException {
+            Objects.requireNonNull(path, "Data Input Stream cannot be null");
+            checkSettings();
+            if (follow) {
+                if (memoryMapped || decompress || parseCache)
+                    throw new IllegalStateException("Followed file cannot be memory mapped, decompressed or cached");
+                return create(new FollowingInputStream(path, followTimeout));
+            }
+            if (decompress) {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                CompressedInput.Format format;
+                try {
+                    format = CompressedInput.detect(channel);
+                } catch (IOException e) {
+                    channel.close();
+                    throw e;
+                }
+                if (format == CompressedInput.Format.GZIP && decompressThreads > 1)
+                    return create(new ParallelGzipInputStream(channel, decompressThreads, inflateThreads()), DEFAULT_BUFFER_SIZE);
+                channel.close();
+                if (format != CompressedInput.Format.NONE)
+                    return createInflating(CompressedInput.inflate(new FileInputStream(path.toFile()), format));
+            }
+            if (parseCache && !ParseCache.isCurrent(path)) ParseCache.write(path);
+            ParseCache cache = openCache(path);
+            if (cache != null && threadFactory == null) {
+                FastScanner scanner = create(new FileInputStream(path.toFile()));
+                scanner.cache = cache;
+                return scanner;
+            }
+            return create(memoryMapped ? openMapped(path) : new FileInputStream(path.toFile()));
+        }
+
+        /**
+         * Builds a scanner which reads from the provided file, memory mapped if set.
+         *
+         * @param file File to read from
+         * @return the scanner
+         * @throws IOException if the file cannot be opened or mapped
+         * @throws IllegalStateException if both a buffer pool and prefetch mode are set
+         */
+        public FastScanner build(@NotNull File file) throws IOException {
+            return build(Objects.requireNonNull(file, "Data Input Stream cannot be null").toPath());
+        }
+
+        /**
+         * Builds a scanner which reads from the provided channel, see
+         * {@link FastScanner#FastScanner(ReadableByteChannel)}.
+         *
+         * @param channel channel in blocking mode to read from, closed by <tt>close()</tt>
+         * @return the scanner
+         * @throws UncheckedIOException if decompressing and the first bytes cannot be read
+         * @throws java.nio.channels.IllegalBlockingModeException
+         *         if the channel is in non-blocking mode
+         * @throws IllegalStateException if both a buffer pool and prefetch mode are set
+         */
+        public FastScanner build(@NotNull ReadableByteChannel channel) {
+            Objects.requireNonNull(channel, "Channel cannot be null");
+            checkSettings();
+            if (decompress && channel instanceof FileChannel) {
+                // a file channel is peeked by position, so a plain file stays splittable
+                try {
+                    CompressedInput.Format format = CompressedInput.detect((FileChannel) channel);
+                    if (format != CompressedInput.Format.NONE)
+                        return createInflating(CompressedInput.inflate(new ChannelInputStream(channel), format));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else if (decompress) {
+                return createDetected(new ChannelInputStream(channel));
+            }
+            return create(new ChannelInputStream(channel));
+        }
+
+        /* checked before the source is opened, so an invalid builder does not leak it */
+        private void checkSettings() {
+            if (threadFactory != null && pool != null) throw new IllegalStateException("Prefetch mode scanner cannot be pooled");
+        }
+
+        private FastScanner createDetected(InputStream in) {
+            PushbackInputStream peekable = CompressedInput.peekable(in);
+            try {
+                CompressedInput.Format format = CompressedInput.detect(peekable);
+                return format == CompressedInput.Format.NONE ? create(peekable) : createInflating(CompressedInput.inflate(peekable, format));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /* inflates on the prefetch thread, whose ring of buffers the scanner parses */
+        private FastScanner createInflating(InputStream in) {
+            FastScanner scanner = new FastScanner(in, bufferSize == 0 ? PREFETCH_BUFFER_SIZE : bufferSize, inflateThreads());
+            scanner.charset = charset;
+            return scanner.useMetrics(metrics);
+        }
+
+        private ThreadFactory inflateThreads() {
+            return threadFactory != null ? threadFactory : CompressedInput.THREADS;
+        }
+
+        /* a scanner over a stream which is already read on other threads */
+        private FastScanner create(InputStream in, int defaultBufferSize) {
+            FastScanner scanner = new FastScanner(in, bufferSize == 0 ? defaultBufferSize : bufferSize);
+            scanner.maxBufferSize = maxBufferSize;
+            scanner.charset = charset;
+            return scanner.useMetrics(metrics);
+        }
+
+        private FastScanner create(InputStream in) {
+            FastScanner scanner;
+            if (threadFactory != null) {
+                scanner = new FastScanner(in, bufferSize == 0 ? PREFETCH_BUFFER_SIZE : bufferSize, threadFactory);
+            } else {
+                int size = bufferSize == 0 ? DEFAULT_BUFFER_SIZE : bufferSize;
+                scanner = new FastScanner(in, pool == null ? new byte[size] : pool.acquire(size));
+                scanner.pool = pool;
+                scanner.bufferSize = size;
+                scanner.maxBufferSize = maxBufferSize;
+            }
+            scanner.charset = charset;
+            return scanner.useMetrics(metrics);
+        }
     }
 }
@@ -0,0 +1,440 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A fast writer of primitive data types and text to any OutputStream, the output
+ * counterpart of {@link FastScanner}.
+ * It is much faster than PrintWriter as numbers are formatted straight into a
+ * reusable byte buffer, without creating Strings or encoding chars, so a
+ * read-transform-write pipeline does not allocate per value.<br>
+ * Doubles are written as the shortest decimal which parses back to the same double,
+ * in the format of <code>Double.toString</code>. Text is written as UTF-8.
+ * Files can be written in memory mapped mode, see {@link #FastWriter(Path, boolean)}.
+ *
+ * <pre>{@code
+ *  FastScanner in = new FastScanner(input);
+ *  FastWriter out = new FastWriter(output);
+ *  TokenView name = new TokenView();
+ *  while (in.nextToken(name)) out.write(name).writeByte(' ').writeDouble(in.nextDoubleFast() * rate).newLine();
+ *  out.close();
+ * }</pre>
+ */
+public class FastWriter implements Closeable, Flushable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1<<13;
+    /* room for any value written in one piece, a long or a double */
+    private static final int MAX_VALUE_LENGTH = 32;
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+    private static final long[] POW10 = new long[19];
+    private static final byte[] LONG_MIN = "-9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[i << 1] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[(i << 1) + 1] = (byte) ('0' + i % 10);
+        }
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    private final OutputStream outputStream;
+    private final byte[] buffer;
+    private int position;
+
+    /**
+     * Constructs a new <code>FastWriter</code> object that writes to
+     * the provided output stream.
+     *
+     * @param out Output Stream to write to
+     */
+    public FastWriter(@NotNull OutputStream out) {
+        this(Objects.requireNonNull(out, "Data Output Stream cannot be null"), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a new <code>FastWriter</code> object that writes the
+     * provided file <code>Path</code>, replacing its contents.
+     *
+     * @param path Path object of file to write to
+     * @throws FileNotFoundException if the file cannot be opened for writing
+     */
+    public FastWriter(@NotNull Path path) throws FileNotFoundException {
+        this(new FileOutputStream(Objects.requireNonNull(path, "Data Output Stream cannot be null").toFile()),
+                DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a new <code>FastWriter</code> object that writes the
+     * provided file <code>Path</code>, replacing its contents.<br>
+     * In memory mapped mode the buffer is copied into a
+     * {@linkplain java.nio.MappedByteBuffer MappedByteBuffer} window of the file
+     * without a <code>write</code> system call. The window grows the file ahead of
+     * the output, the file is truncated to the bytes written on <tt>close()</tt>.
+     *
+     * @param path         Path object of file to write to
+     * @param memoryMapped <code>true</code> to map the file instead of writing it as OutputStream
+     * @throws IOException if the file cannot be opened
+     */
+    public FastWriter(@NotNull Path path, boolean memoryMapped) throws IOException {
+        this(memoryMapped ? openMapped(path) : new FileOutputStream(
+                Objects.requireNonNull(path, "Data Output Stream cannot be null").toFile()), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a new <code>FastWriter</code> object that writes the
+     * provided <code>File</code>, replacing its contents.
+     *
+     * @param file File to write to
+     * @throws FileNotFoundException if the file cannot be opened for writing
+     */
+    public FastWriter(@NotNull File file) throws FileNotFoundException {
+        this(new FileOutputStream(Objects.requireNonNull(file, "Data Output Stream cannot be null")),
+                DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a new <code>FastWriter</code> object that writes to
+     * the provided channel, such as a socket, a pipe or a file channel.
+     *
+     * @param channel channel in blocking mode to write to, closed by <tt>close()</tt>
+     * @throws java.nio.channels.IllegalBlockingModeException
+     *         if the channel is in non-blocking mode
+     */
+    public FastWriter(@NotNull WritableByteChannel channel) {
+        this(new ChannelOutputStream(Objects.requireNonNull(channel, "Channel cannot be null")), DEFAULT_BUFFER_SIZE);
+    }
+
+    /* Constructs a writer with a buffer of the given size */
+    FastWriter(OutputStream out, int bufferSize) {
+        outputStream = out;
+        buffer = new byte[Math.max(bufferSize, MAX_VALUE_LENGTH)];
+        position = 0;
+    }
+
+    private static OutputStream openMapped(Path path) throws IOException {
+        Objects.requireNonNull(path, "Data Output Stream cannot be null");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new MappedFileOutputStream(channel);
+    }
+
+//    Makes room for n bytes in the buffer, n is at most MAX_VALUE_LENGTH
+    private void ensure(int n) throws IOException{
+        if (position > buffer.length - n) flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException{
+        if (position > 0) outputStream.write(buffer, 0, position);
+        position = 0;
+    }
+
+    /**
+     *  Writes a single byte, for example an ASCII separator.
+     *
+     *  @param b the byte to write, the high 24 bits are ignored
+     *  @return this writer
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter writeByte(int b) throws IOException{
+        if (position == buffer.length) flushBuffer();
+        buffer[position++] = (byte) b;
+        return this;
+    }
+
+    /**
+     *  Writes a line feed.
+     *
+     *  @return this writer
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter newLine() throws IOException{
+        return writeByte('\n');
+    }
+
+    /**
+     *  Writes the integer in decimal.
+     *
+     *  @param value the value to write
+     *  @return this writer
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter writeInt(int value) throws IOException{
+        ensure(MAX_VALUE_LENGTH);
+        position = putInt(value, buffer, position);
+        return this;
+    }
+
+    /**
+     *  Writes the long value in decimal.
+     *
+     *  @param value the value to write
+     *  @return this writer
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter writeLong(long value) throws IOException{
+        ensure(MAX_VALUE_LENGTH);
+        position = putLong(value, buffer, position);
+        return this;
+    }
+
+    /**
+     *  Writes the shortest decimal which parses back to the same double, in the
+     *  format of <code>Double.toString</code>, such as <code>0.1</code>,
+     *  <code>100.0</code> or <code>1.0E-5</code>.
+     *
+     *  @param value the value to write
+     *  @return this writer
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter writeDouble(double value) throws IOException{
+        ensure(MAX_VALUE_LENGTH);
+        position = DoubleToDecimal.write(value, buffer, position);
+        return this;
+    }
+
+    /**
+     *  Writes the bytes of the token, for example a token read by
+     *  <tt>FastScanner.nextToken()</tt>, without decoding it.
+     *
+     *  @param token the token to write
+     *  @return this writer
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter write(@NotNull TokenView token) throws IOException{
+        return write(token.array(), token.offset(), token.length());
+    }
+
+    /**
+     *  Writes <code>len</code> bytes of the array starting at <code>off</code>.
+     *  Slices larger than the buffer are written straight to the output.
+     *
+     *  @param b   the bytes to write
+     *  @param off index of the first byte to write
+     *  @param len number of bytes to write
+     *  @return this writer
+     *  @throws IndexOutOfBoundsException
+     *          if <code>off</code> and <code>len</code> are out of the array bounds
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter write(byte[] b, int off, int len) throws IOException{
+        checkRange(b.length, off, len);
+        if (len > buffer.length - position){
+            flushBuffer();
+            if (len >= buffer.length){
+                outputStream.write(b, off, len);
+                return this;
+            }
+        }
+        System.arraycopy(b, off, buffer, position, len);
+        position += len;
+        return this;
+    }
+
+    /**
+     *  Writes the characters encoded as UTF-8, unpaired surrogates as <code>?</code>
+     *  like <code>String.getBytes</code>.
+     *
+     *  @param s the characters to write
+     *  @return this writer
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter write(@NotNull CharSequence s) throws IOException{
+        byte[] buf = buffer;
+        int p = position;
+        for (int i = 0, n = s.length(); i < n; i++){
+            if (p > buf.length - 4){
+                position = p;
+                flushBuffer();
+                p = 0;
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) buf[p++] = (byte) c;
+            else if (c < 0x800){
+                buf[p++] = (byte) (0xC0 | c >> 6);
+                buf[p++] = (byte) (0x80 | c & 0x3F);
+            }
+            else if (Character.isSurrogate(c)){
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))){
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[p++] = (byte) (0xF0 | cp >> 18);
+                    buf[p++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    buf[p++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    buf[p++] = (byte) (0x80 | cp & 0x3F);
+                }
+                else buf[p++] = '?';
+            }
+            else {
+                buf[p++] = (byte) (0xE0 | c >> 12);
+                buf[p++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buf[p++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        position = p;
+        return this;
+    }
+
+    /**
+     *  Writes <code>len</code> integers of the array starting at <code>off</code>,
+     *  separated by the separator. No separator follows the last value.
+     *
+     *  @param values    the values to write
+     *  @param off       index of the first value
+     *  @param len       number of values to write
+     *  @param separator ASCII character between the values, such as <code>' '</code> or <code>'\n'</code>
+     *  @return this writer
+     *  @throws IndexOutOfBoundsException
+     *          if <code>off</code> and <code>len</code> are out of the array bounds
+     *  @throws IllegalArgumentException if the separator is not ASCII
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter writeInts(int[] values, int off, int len, char separator) throws IOException{
+        checkRange(values.length, off, len);
+        byte sep = separator(separator);
+        byte[] buf = buffer;
+        for (int i = off, end = off + len; i < end; i++){
+            if (position > buf.length - MAX_VALUE_LENGTH) flushBuffer();
+            if (i > off) buf[position++] = sep;
+            position = putInt(values[i], buf, position);
+        }
+        return this;
+    }
+
+    /**
+     *  Writes <code>len</code> long values of the array starting at <code>off</code>,
+     *  separated by the separator, see <tt>writeInts()</tt>.
+     *
+     *  @return this writer
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter writeLongs(long[] values, int off, int len, char separator) throws IOException{
+        checkRange(values.length, off, len);
+        byte sep = separator(separator);
+        byte[] buf = buffer;
+        for (int i = off, end = off + len; i < end; i++){
+            if (position > buf.length - MAX_VALUE_LENGTH) flushBuffer();
+            if (i > off) buf[position++] = sep;
+            position = putLong(values[i], buf, position);
+        }
+        return this;
+    }
+
+    /**
+     *  Writes <code>len</code> double values of the array starting at <code>off</code>,
+     *  separated by the separator, see <tt>writeInts()</tt> and <tt>writeDouble()</tt>.
+     *
+     *  @return this writer
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    public FastWriter writeDoubles(double[] values, int off, int len, char separator) throws IOException{
+        checkRange(values.length, off, len);
+        byte sep = separator(separator);
+        byte[] buf = buffer;
+        for (int i = off, end = off + len; i < end; i++){
+            if (position > buf.length - MAX_VALUE_LENGTH) flushBuffer();
+            if (i > off) buf[position++] = sep;
+            position = DoubleToDecimal.write(values[i], buf, position);
+        }
+        return this;
+    }
+
+    /**
+     *  Writes the buffered bytes and flushes the output.
+     *
+     *  @throws IOException if the object is closed or i/o error occurs
+     * */
+    @Override
+    public void flush() throws IOException{
+        flushBuffer();
+        outputStream.flush();
+    }
+
+    /**
+     *  Writes the buffered bytes and closes the output.
+     *
+     *  @throws IOException if i/o error occurs
+     * */
+    @Override
+    public void close() throws IOException{
+        try {
+            flushBuffer();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private static byte separator(char separator){
+        if (separator >= 0x80) throw new IllegalArgumentException("Invalid separator: " + (int) separator);
+        return (byte) separator;
+    }
+
+    private static void checkRange(int length, int off, int len){
+        if (off < 0 || len < 0 || len > length - off)
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + length);
+    }
+
+//    Writes the decimal digits of the value at pos, two digits per division, and returns the end position
+    private static int putInt(int value, byte[] b, int pos){
+        if (value < 0){
+            if (value == Integer.MIN_VALUE) return putLong(value, b, pos);
+            b[pos++] = '-';
+            value = -value;
+        }
+        int end = pos + digits(value), p = end;
+        while (value >= 100){
+            int q = value / 100, r = (value - q * 100) << 1;
+            value = q;
+            b[--p] = DIGIT_PAIRS[r + 1];
+            b[--p] = DIGIT_PAIRS[r];
+        }
+        if (value >= 10){
+            b[--p] = DIGIT_PAIRS[(value << 1) + 1];
+            b[--p] = DIGIT_PAIRS[value << 1];
+        }
+        else b[--p] = (byte) ('0' + value);
+        return end;
+    }
+
+    private static int putLong(long value, byte[] b, int pos){
+        if (value == (int) value && value != Integer.MIN_VALUE) return putInt((int) value, b, pos);
+        if (value < 0){
+            if (value == Long.MIN_VALUE){
+                System.arraycopy(LONG_MIN, 0, b, pos, LONG_MIN.length);
+                return pos + LONG_MIN.length;
+            }
+            b[pos++] = '-';
+            value = -value;
+        }
+        int end = pos + digits(value), p = end;
+        while (value >= Integer.MAX_VALUE){
+            long q = value / 100;
+            int r = (int) (value - q * 100) << 1;
+            value = q;
+            b[--p] = DIGIT_PAIRS[r + 1];
+            b[--p] = DIGIT_PAIRS[r];
+        }
+        int v = (int) value;
+        while (v >= 100){
+            int q = v / 100, r = (v - q * 100) << 1;
+            v = q;
+            b[--p] = DIGIT_PAIRS[r + 1];
+            b[--p] = DIGIT_PAIRS[r];
+        }
+        if (v >= 10){
+            b[--p] = DIGIT_PAIRS[(v << 1) + 1];
+            b[--p] = DIGIT_PAIRS[v << 1];
+        }
+        else b[--p] = (byte) ('0' + v);
+        return end;
+    }
+
+//    Number of decimal digits of a non-negative value
+    private static int digits(long value){
+        int len = (64 - Long.numberOfLeadingZeros(value | 1)) * 1233 >>> 12;
+        return value >= POW10[len] ? len + 1 : Math.max(len, 1);
+    }
+}
@@ -0,0 +1,143 @@
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDK Flight Recorder events of the scanners which use {@link ScannerMetrics}.<br>
+ * The events are defined at runtime through <code>jdk.jfr.EventFactory</code>, found
+ * by reflection, so the scanner still compiles and runs on Java 8 runtimes without
+ * JFR, where the events are disabled. The events are:
+ * <ul>
+ *     <li><code>fastscanner.Refill</code> - a refill of the buffer of a scanner, its
+ *     duration is the time blocked in the read of the source</li>
+ *     <li><code>fastscanner.Mismatch</code> - a token rejected by a Strict method</li>
+ * </ul>
+ */
+final class FlightRecorderEvents {
+
+    private static final EventKind REFILL, MISMATCH;
+
+    static {
+        EventKind refill = null, mismatch = null;
+        try {
+            refill = new EventKind("fastscanner.Refill", "Scanner Refill",
+                    "Refill of the buffer of a FastScanner, the duration is the time blocked in reading the source",
+                    long.class, "bytes", "Bytes", "jdk.jfr.DataAmount", "BYTES");
+            mismatch = new EventKind("fastscanner.Mismatch", "Scanner Mismatch",
+                    "Token rejected by a Strict method of a FastScanner",
+                    String.class, "type", "Type", null, null);
+        } catch (Throwable e) {
+            refill = mismatch = null;
+        }
+        REFILL = refill;
+        MISMATCH = mismatch;
+    }
+
+    private FlightRecorderEvents() {
+    }
+
+    /* returns a begun refill event, or null if no recording enables it */
+    static Object beginRefill() {
+        EventKind kind = REFILL;
+        if (kind == null || !kind.isEnabled()) return null;
+        Object event = kind.newEvent();
+        kind.begin(event);
+        return event;
+    }
+
+    static void commitRefill(Object event, long bytes) {
+        if (event != null) REFILL.commit(event, bytes);
+    }
+
+    static void mismatch(String type) {
+        EventKind kind = MISMATCH;
+        if (kind == null || !kind.isEnabled()) return;
+        kind.commit(kind.newEvent(), type);
+    }
+
+    /* an event type with a single field, created through the jdk.jfr.EventFactory */
+    private static final class EventKind {
+
+        private final MethodHandle isEnabled, newEvent, begin, set, commit;
+
+        EventKind(String name, String label, String description, Class<?> fieldType,
+                  String fieldName, String fieldLabel, String fieldAnnotation, Object fieldAnnotationValue)
+                throws Throwable {
+            Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+            Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventType = Class.forName("jdk.jfr.EventType");
+            Class<?> event = Class.forName("jdk.jfr.Event");
+            Constructor<?> element = annotationElement.getConstructor(Class.class, Object.class);
+            Constructor<?> descriptor = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+
+            List<Object> fieldAnnotations = new ArrayList<>();
+            fieldAnnotations.add(element.newInstance(annotation("jdk.jfr.Label"), fieldLabel));
+            if (fieldAnnotation != null)
+                fieldAnnotations.add(element.newInstance(annotation(fieldAnnotation), fieldAnnotationValue));
+            List<Object> fields = Collections.singletonList(descriptor.newInstance(fieldType, fieldName, fieldAnnotations));
+            List<Object> annotations = Arrays.asList(
+                    element.newInstance(annotation("jdk.jfr.Name"), name),
+                    element.newInstance(annotation("jdk.jfr.Label"), label),
+                    element.newInstance(annotation("jdk.jfr.Description"), description),
+                    element.newInstance(annotation("jdk.jfr.Category"), new String[]{"FastScanner"}));
+            Object factory = eventFactory.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Object type = eventFactory.getMethod("getEventType").invoke(factory);
+            isEnabled = lookup.findVirtual(eventType, "isEnabled", MethodType.methodType(boolean.class)).bindTo(type);
+            newEvent = lookup.findVirtual(eventFactory, "newEvent", MethodType.methodType(event)).bindTo(factory)
+                    .asType(MethodType.methodType(Object.class));
+            begin = lookup.findVirtual(event, "begin", MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+            set = lookup.findVirtual(event, "set", MethodType.methodType(void.class, int.class, Object.class))
+                    .asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+            commit = lookup.findVirtual(event, "commit", MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Class<? extends Annotation> annotation(String name) throws ClassNotFoundException {
+            return (Class<? extends Annotation>) Class.forName(name);
+        }
+
+        boolean isEnabled() {
+            try {
+                return (boolean) isEnabled.invokeExact();
+            } catch (Throwable e) {
+                return false;
+            }
+        }
+
+        Object newEvent() {
+            try {
+                return (Object) newEvent.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void begin(Object event) {
+            try {
+                begin.invokeExact(event);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void commit(Object event, Object value) {
+            try {
+                set.invokeExact(event, 0, value);
+                commit.invokeExact(event);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
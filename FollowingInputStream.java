@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An InputStream over a growing file, such as a log which is appended to, which
+ * waits at the end of the file until it grows instead of ending, like
+ * <tt>tail -f</tt>.<br>
+ * The stream waits on a {@link WatchService} of the directory of the file, which
+ * wakes it as soon as the file changes on file systems with change notification.
+ * As notifications may be late or missing, the wait is bounded by a poll interval
+ * which starts at {@value #MIN_POLL_MILLIS} ms after the last read bytes and doubles
+ * up to {@value #MAX_POLL_MILLIS} ms while the file does not grow.<br>
+ * A file which gets shorter than the position was truncated and is read again from
+ * its start. A file which is replaced by another one, as by log rotation, is read to
+ * its end and then the new file is read from its start.
+ */
+final class FollowingInputStream extends InputStream {
+
+    static final int MIN_POLL_MILLIS = 1, MAX_POLL_MILLIS = 256;
+
+    private final Path path;
+    /* nanoseconds to wait for the file to grow before the end of input, 0 to wait forever */
+    private final long idleTimeout;
+    private WatchService watcher;
+    private FileChannel channel;
+    /* the key of the file read, which tells a replaced file, or null if the file system has no keys */
+    private Object fileKey;
+    private long position;
+
+    /* the buffer of the last array read into */
+    private byte[] array;
+    private ByteBuffer wrapped;
+
+    FollowingInputStream(Path path, long idleTimeout) throws IOException {
+        this.path = path;
+        this.idleTimeout = idleTimeout;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileKey = fileKey();
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            watcher = directory.getFileSystem().newWatchService();
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            // without notifications the file is polled
+            if (watcher != null) watcher.close();
+            watcher = null;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (channel == null) throw new IOException("Stream closed");
+        if (b != array) {
+            wrapped = ByteBuffer.wrap(b);
+            array = b;
+        }
+        wrapped.limit(off + len).position(off);
+        long idleSince = 0;
+        int poll = MIN_POLL_MILLIS;
+        while (true) {
+            int n = channel.read(wrapped, position);
+            if (n > 0) {
+                position += n;
+                return n;
+            }
+            if (reopened()) continue;
+            long now = System.nanoTime();
+            if (idleSince == 0) idleSince = now;
+            else if (idleTimeout > 0 && now - idleSince >= idleTimeout) return -1;
+            await(poll);
+            poll = Math.min(poll << 1, MAX_POLL_MILLIS);
+        }
+    }
+
+    /* at the end of the file, moves to the start of a truncated file or to a new file at the path */
+    private boolean reopened() throws IOException {
+        if (channel.size() < position) {
+            position = 0;
+            return true;
+        }
+        Object key;
+        try {
+            key = fileKey();
+        } catch (NoSuchFileException e) {
+            // the file is rotated and the new one not yet created
+            return false;
+        }
+        if (key == null || key.equals(fileKey)) return false;
+        // bytes written to the old file until the writer moved on are read first
+        if (channel.size() > position) return true;
+        FileChannel next;
+        try {
+            next = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        channel.close();
+        channel = next;
+        fileKey = key;
+        position = 0;
+        return true;
+    }
+
+    private Object fileKey() throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    /* waits for a change in the directory of the file, at most the poll interval */
+    private void await(int millis) throws IOException {
+        try {
+            if (watcher == null) {
+                Thread.sleep(millis);
+                return;
+            }
+            WatchKey key = watcher.poll(millis, TimeUnit.MILLISECONDS);
+            if (key != null) {
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the file to grow");
+        } catch (ClosedWatchServiceException e) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Skips up to the current end of the file, without waiting for it to grow.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (channel == null) throw new IOException("Stream closed");
+        if (n <= 0) return 0;
+        long skipped = Math.min(n, Math.max(channel.size() - position, 0));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (channel == null) return 0;
+        return (int) Math.min(Math.max(channel.size() - position, 0), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        try {
+            if (watcher != null) watcher.close();
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An InputStream over a region of a file which serves the bytes directly from
+ * {@linkplain MappedByteBuffer memory mapped} windows of the file instead of
+ * issuing a <code>read</code> system call for every refill.<br>
+ * The mapping window slides over the file so that files larger than the 2 GB
+ * limit of a single {@linkplain MappedByteBuffer MappedByteBuffer} can be read.
+ */
+final class MappedFileInputStream extends InputStream {
+
+    /* size of a single mapping, the window is remapped once it is consumed */
+    static final long WINDOW_SIZE = 1L<<26;
+
+    private final FileChannel channel;
+    private final boolean ownsChannel;
+    private MappedByteBuffer window;
+    private final long end;
+    private long windowEnd;
+
+    /**
+     * Creates a stream over the bytes <code>[start, end)</code> of the channel.
+     *
+     * @param channel     channel of the file to map
+     * @param start       file position of the first byte to read
+     * @param end         file position after the last byte to read
+     * @param ownsChannel whether closing this stream closes the channel
+     */
+    MappedFileInputStream(FileChannel channel, long start, long end, boolean ownsChannel) {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.windowEnd = start;
+        this.end = end;
+    }
+
+    /* maps the next window if the current one is consumed, false at the end of region */
+    private boolean ensureWindow() throws IOException {
+        if (window != null && window.hasRemaining()) return true;
+        if (windowEnd >= end) return false;
+        long size = Math.min(WINDOW_SIZE, end - windowEnd);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, size);
+        windowEnd += size;
+        return true;
+    }
+
+    /**
+     * Returns the first position at or after <code>position</code> at which a token
+     * can start, that is the position following an ASCII separator byte. Splitting a file at
+     * such positions never splits a token.
+     *
+     * @param channel  channel of the file
+     * @param position position to search from
+     * @param end      position after the last byte of the file region
+     * @return the start of the next token boundary, or <code>end</code> if there is none
+     */
+    static long nextTokenBoundary(FileChannel channel, long position, long end) throws IOException {
+        if (position <= 0) return 0;
+        ByteBuffer bytes = ByteBuffer.allocate(1<<12);
+        long p = position - 1;
+        while (p < end) {
+            bytes.clear();
+            int n = channel.read(bytes, p);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                byte b = bytes.get(i);
+                if (b >= 0 && b <= ' ') return Math.min(end, p + i + 1);
+            }
+            p += n;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the channel of the mapped file.
+     */
+    FileChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Returns the file position after the last byte of the region.
+     */
+    long end() {
+        return end;
+    }
+
+    /**
+     * Returns the file position of the next byte to be read.
+     */
+    long position() {
+        return window == null ? windowEnd : windowEnd - window.remaining();
+    }
+
+    /**
+     * Moves to the file position, clamped to the end of the region.
+     */
+    void seek(long position) {
+        window = null;
+        windowEnd = Math.min(position, end);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) return -1;
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!ensureWindow()) return -1;
+        int n = Math.min(len, window.remaining());
+        window.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        long position = position(), target = Math.min(end, position + n);
+        if (window != null && target < windowEnd && target >= windowEnd - window.limit()) {
+            window.position((int) (target - (windowEnd - window.limit())));
+        } else {
+            window = null;
+            windowEnd = target;
+        }
+        return target - position;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        windowEnd = end;
+        if (ownsChannel) channel.close();
+    }
+}
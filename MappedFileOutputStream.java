@@ -0,0 +1,68 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An OutputStream which writes a file through {@linkplain MappedByteBuffer memory
+ * mapped} windows instead of issuing a <code>write</code> system call for every
+ * flush of the writer.<br>
+ * Mapping a window grows the file by the window size, the file is truncated to the
+ * bytes written on close. The window slides over the file so that files larger than
+ * the 2 GB limit of a single {@linkplain MappedByteBuffer MappedByteBuffer} can be written.
+ */
+final class MappedFileOutputStream extends OutputStream {
+
+    /* size of a single mapping, the next window is mapped once it is full */
+    static final long WINDOW_SIZE = 1L<<26;
+
+    private final FileChannel channel;
+    private MappedByteBuffer window;
+    /* file position of the next byte to write */
+    private long position;
+
+    /**
+     * Creates a stream writing the channel from its start.
+     *
+     * @param channel channel of the file opened for reading and writing, closed by this stream
+     */
+    MappedFileOutputStream(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /* maps the next window if the current one is full */
+    private void ensureWindow() throws IOException {
+        if (window != null && window.hasRemaining()) return;
+        window = channel.map(FileChannel.MapMode.READ_WRITE, position, WINDOW_SIZE);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureWindow();
+        window.put((byte) b);
+        position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureWindow();
+            int n = Math.min(len, window.remaining());
+            window.put(b, off, n);
+            position += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+        window = null;
+        try {
+            channel.truncate(position);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,356 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Parses many files concurrently, each by its own {@link FastScanner}, on up to
+ * <code>concurrency</code> worker threads which take the next file once they are
+ * done with one. The threads are virtual threads on runtimes which have them and
+ * daemon platform threads otherwise, or come from a provided thread factory.<br>
+ * At most <code>concurrency</code> files are in flight, that is parsed or parsed
+ * and waiting for their result to be delivered. The results are delivered in the
+ * order of the files on the calling thread, so a slow consumer holds back the
+ * parsing of further files and at most <code>concurrency</code> results are held
+ * in memory. The scanners are built by a {@link FastScanner.Builder}, by default
+ * with buffers taken from the {@linkplain BufferPool#shared() shared pool}, so
+ * parsing thousands of small files allocates few buffers.
+ *
+ * <pre>{@code
+ *  MultiFileScanner files = MultiFileScanner.glob(directory, "**.txt").concurrency(64);
+ *  files.forEach((file, scanner) -> scanner.nextLongFast(), (file, first) -> index.put(file, first));
+ *  long[] all = files.readLongsFast();
+ * }</pre>
+ */
+public final class MultiFileScanner {
+
+    private static final ThreadFactory THREADS = virtualThreads();
+
+    private final List<Path> files;
+    private int concurrency = Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+    private ThreadFactory threadFactory = THREADS;
+    private FastScanner.Builder builder = FastScanner.builder().bufferPool(BufferPool.shared());
+
+    /**
+     * A function parsing a single file.
+     *
+     * @param <R> type of the result of a file
+     */
+    public interface FileParser<R> {
+        /**
+         * Parses a file. Files are parsed concurrently.
+         *
+         * @param file    the file
+         * @param scanner scanner reading the file, closed once the parser returns
+         * @return the result of the file
+         * @throws IOException if i/o error occurs
+         */
+        R parse(Path file, FastScanner scanner) throws IOException;
+    }
+
+    /**
+     * A consumer of the results of the files, called in the order of the files on
+     * the thread which started the scan.
+     *
+     * @param <R> type of the result of a file
+     */
+    public interface ResultConsumer<R> {
+        /**
+         * Consumes the result of a file.
+         *
+         * @param file   the file
+         * @param result the result of the parser
+         * @throws IOException if i/o error occurs
+         */
+        void accept(Path file, R result) throws IOException;
+    }
+
+    /**
+     * Constructs a scanner of the files, which are parsed and delivered in the order of the list.
+     *
+     * @param files the files to parse
+     */
+    public MultiFileScanner(@NotNull List<Path> files) {
+        Objects.requireNonNull(files, "Files cannot be null");
+        this.files = new ArrayList<>(files);
+        for (Path file : this.files) Objects.requireNonNull(file, "File cannot be null");
+    }
+
+    /**
+     * Constructs a scanner of the regular files below the directory whose path
+     * relative to the directory matches the glob, see
+     * {@link java.nio.file.FileSystem#getPathMatcher(String)}. The files are
+     * parsed and delivered in the order of their paths.
+     *
+     * @param directory the directory to search
+     * @param glob      glob pattern such as <code>*.txt</code>, or <code>**.txt</code> to
+     *                  include subdirectories
+     * @return the scanner of the matching files
+     * @throws IOException if the directory cannot be read
+     */
+    public static MultiFileScanner glob(@NotNull Path directory, @NotNull String glob) throws IOException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return new MultiFileScanner(paths
+                    .filter(path -> Files.isRegularFile(path) && matcher.matches(directory.relativize(path)))
+                    .sorted()
+                    .collect(Collectors.toList()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Sets the maximal number of files in flight.
+     *
+     * @param concurrency the number of files parsed or waiting for their result to be delivered
+     * @return this scanner
+     */
+    public MultiFileScanner concurrency(int concurrency) {
+        if (concurrency <= 0) throw new IllegalArgumentException("Invalid concurrency: " + concurrency);
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Sets the factory of the worker threads parsing the files, up to <code>concurrency</code> per scan.
+     *
+     * @param threadFactory factory of the parsing threads
+     * @return this scanner
+     */
+    public MultiFileScanner threadFactory(@NotNull ThreadFactory threadFactory) {
+        this.threadFactory = Objects.requireNonNull(threadFactory, "Thread factory cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the builder of the scanners of the files, which should take its buffers from a pool.
+     *
+     * @param builder builder of the scanners
+     * @return this scanner
+     */
+    public MultiFileScanner scanners(@NotNull FastScanner.Builder builder) {
+        this.builder = Objects.requireNonNull(builder, "Builder cannot be null");
+        return this;
+    }
+
+    /**
+     * @return the files to parse, in the order their results are delivered
+     */
+    public List<Path> files() {
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Parses the files concurrently and delivers the results in the order of the
+     * files. Once a parser or the consumer fails no further file is started, the
+     * files in flight are awaited and the failure is thrown.
+     *
+     * @param parser   function parsing a single file
+     * @param consumer consumer of the results, called on the calling thread
+     * @param <R>      type of the result of a file
+     * @throws IOException if a file cannot be read, or the parser or the consumer fails
+     */
+    public <R> void forEach(@NotNull FileParser<R> parser, @NotNull ResultConsumer<? super R> consumer) throws IOException {
+        Objects.requireNonNull(parser, "Parser cannot be null");
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        Scan<R> scan = new Scan<>(parser);
+        List<Thread> workers = new ArrayList<>();
+        try {
+            for (int i = Math.min(concurrency, files.size()); i > 0; i--) {
+                Thread worker = threadFactory.newThread(scan);
+                workers.add(worker);
+                worker.start();
+            }
+            for (int i = 0; i < files.size(); i++) {
+                consumer.accept(files.get(i), await(scan.results[i]));
+                scan.inFlight.release();
+            }
+        } finally {
+            // after a failure the workers finish the files they parse and start no further file
+            scan.stopped = true;
+            scan.inFlight.release(workers.size());
+            join(workers);
+        }
+    }
+
+    /**
+     * Parses the files concurrently and returns the results in the order of the files.
+     *
+     * @param parser function parsing a single file
+     * @param <R>    type of the result of a file
+     * @return the results in the order of the files
+     * @throws IOException if a file cannot be read or the parser fails
+     */
+    public <R> List<R> map(@NotNull FileParser<R> parser) throws IOException {
+        List<R> results = new ArrayList<>(files.size());
+        forEach(parser, (file, result) -> results.add(result));
+        return results;
+    }
+
+    /**
+     *  Reads all the integers in the files, see <tt>FastScanner.nextIntFast()</tt>.
+     *
+     *  @return the values in the order of the files
+     *  @throws IOException if i/o error occurs
+     * */
+    public int[] readIntsFast() throws IOException {
+        return ParallelFastScanner.concatInts(map((file, scanner) -> ParallelFastScanner.readInts(scanner, false)));
+    }
+
+    /**
+     *  Reads and validates all the integers in the files, see <tt>FastScanner.nextIntStrict()</tt>.
+     *
+     *  @return the values in the order of the files
+     *  @throws java.util.InputMismatchException
+     *          if a token does not match the Integer regular expression, or is out of range
+     *  @throws IOException if i/o error occurs
+     * */
+    public int[] readIntsStrict() throws IOException {
+        return ParallelFastScanner.concatInts(map((file, scanner) -> ParallelFastScanner.readInts(scanner, true)));
+    }
+
+    /**
+     *  Reads all the long values in the files, see <tt>FastScanner.nextLongFast()</tt>.
+     *
+     *  @return the values in the order of the files
+     *  @throws IOException if i/o error occurs
+     * */
+    public long[] readLongsFast() throws IOException {
+        return ParallelFastScanner.concatLongs(map((file, scanner) -> ParallelFastScanner.readLongs(scanner, false)));
+    }
+
+    /**
+     *  Reads and validates all the long values in the files, see <tt>FastScanner.nextLongStrict()</tt>.
+     *
+     *  @return the values in the order of the files
+     *  @throws java.util.InputMismatchException
+     *          if a token does not match the Long regular expression, or is out of range
+     *  @throws IOException if i/o error occurs
+     * */
+    public long[] readLongsStrict() throws IOException {
+        return ParallelFastScanner.concatLongs(map((file, scanner) -> ParallelFastScanner.readLongs(scanner, true)));
+    }
+
+    /**
+     *  Reads all the double values in the files, see <tt>FastScanner.nextDoubleFast()</tt>.
+     *
+     *  @return the values in the order of the files
+     *  @throws IOException if i/o error occurs
+     * */
+    public double[] readDoublesFast() throws IOException {
+        return ParallelFastScanner.concatDoubles(map((file, scanner) -> ParallelFastScanner.readDoubles(scanner, false)));
+    }
+
+    /**
+     *  Reads and validates all the double values in the files, see <tt>FastScanner.nextDoubleStrict()</tt>.
+     *
+     *  @return the values in the order of the files
+     *  @throws java.util.InputMismatchException
+     *          if a token does not match the decimal number format
+     *  @throws IOException if i/o error occurs
+     * */
+    public double[] readDoublesStrict() throws IOException {
+        return ParallelFastScanner.concatDoubles(map((file, scanner) -> ParallelFastScanner.readDoubles(scanner, true)));
+    }
+
+    /* the state of a scan shared by its workers, each worker parses the next file until all are claimed */
+    private final class Scan<R> implements Runnable {
+
+        private final FileParser<R> parser;
+        final CompletableFuture<R>[] results;
+        /* permits for the files which may be claimed before the result of the oldest one is delivered */
+        final Semaphore inFlight = new Semaphore(concurrency);
+        private final AtomicInteger next = new AtomicInteger();
+        volatile boolean stopped;
+
+        Scan(FileParser<R> parser) {
+            this.parser = parser;
+            @SuppressWarnings("unchecked")
+            CompletableFuture<R>[] results = (CompletableFuture<R>[]) new CompletableFuture<?>[files.size()];
+            this.results = results;
+            for (int i = 0; i < results.length; i++) results[i] = new CompletableFuture<>();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                inFlight.acquireUninterruptibly();
+                int i = next.getAndIncrement();
+                if (i >= results.length || stopped) {
+                    inFlight.release();
+                    return;
+                }
+                Path file = files.get(i);
+                R result;
+                try (FastScanner scanner = builder.build(file)) {
+                    result = parser.parse(file, scanner);
+                } catch (Throwable e) {
+                    results[i].completeExceptionally(e);
+                    continue;
+                }
+                results[i].complete(result);
+            }
+        }
+    }
+
+    private static <R> R await(CompletableFuture<R> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a file");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private static void join(List<Thread> workers) throws InterruptedIOException {
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the workers");
+            }
+        }
+    }
+
+    /* Thread.ofVirtual().name("fastscanner-file-", 1).factory() on runtimes with virtual threads */
+    private static ThreadFactory virtualThreads() {
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object ofVirtual = Thread.class.getMethod("ofVirtual").invoke(null);
+            ofVirtual = builder.getMethod("name", String.class, long.class).invoke(ofVirtual, "fastscanner-file-", 1L);
+            return (ThreadFactory) builder.getMethod("factory").invoke(ofVirtual);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, "fastscanner-file-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+        }
+    }
+}
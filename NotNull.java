@@ -0,0 +1,16 @@
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a parameter which must not be <code>null</code>.<br>
+ * Replaces <code>com.sun.istack.internal.NotNull</code>, which is internal to
+ * JDK 8 and not available to javac or on later JDKs.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.PARAMETER, ElementType.METHOD, ElementType.FIELD})
+@interface NotNull {
+}
@@ -0,0 +1,174 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Owns {@link OffHeapColumn columns} of numbers stored outside of the Java heap,
+ * in direct memory or in memory mapped files, so datasets larger than the heap
+ * can be parsed without loading the heap or pausing the garbage collector.<br>
+ * The memory of the columns is released when the arena is closed, not when the
+ * garbage collector finds the buffers unreachable; columns and the segments they
+ * handed out must not be used afterwards. Mapped files are truncated to the values
+ * written and kept. Direct memory counts against <code>-XX:MaxDirectMemorySize</code>,
+ * which defaults to the maximal heap size, so datasets larger than the heap are
+ * stored in mapped files. An arena and its columns are used by one thread at a time.
+ *
+ * <pre>{@code
+ *  try (OffHeapArena arena = new OffHeapArena()) {
+ *      OffHeapColumn prices = arena.map(ColumnBatch.Type.DOUBLE, Paths.get("prices.bin"));
+ *      long n = prices.readFast(new FastScanner(path));
+ *      for (int s = 0; s < prices.segmentCount(); s++) consume(prices.segment(s));
+ *  }
+ * }</pre>
+ */
+public final class OffHeapArena implements Closeable {
+
+    /* size of a segment of the columns, which are allocated or mapped one segment at a time */
+    static final int DEFAULT_SEGMENT_SIZE = 1<<26;
+
+    private static final Object UNSAFE;
+    /* Unsafe.invokeCleaner(ByteBuffer) on Java 9 and later, null on Java 8 */
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final int segmentSize;
+    private final List<OffHeapColumn> columns = new ArrayList<>();
+    private boolean closed;
+
+    /**
+     * Constructs an arena whose columns grow by segments of 64 MB.
+     */
+    public OffHeapArena() {
+        this(DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructs an arena whose columns grow by segments of the given size.
+     *
+     * @param segmentSize size of a segment in bytes, a power of two of at least 8 bytes
+     */
+    public OffHeapArena(int segmentSize) {
+        if (segmentSize < 8 || (segmentSize & segmentSize - 1) != 0)
+            throw new IllegalArgumentException("Segment size is not a power of two: " + segmentSize);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Creates an empty column in direct memory.
+     *
+     * @param type {@link ColumnBatch.Type#INT INT}, {@link ColumnBatch.Type#LONG LONG} or
+     *             {@link ColumnBatch.Type#DOUBLE DOUBLE}
+     * @return the column, released when the arena is closed
+     * @throws IllegalArgumentException if the type is not numeric
+     * @throws IllegalStateException if the arena is closed
+     */
+    public OffHeapColumn allocate(@NotNull ColumnBatch.Type type) {
+        return add(new OffHeapColumn(this, type, segmentSize, null));
+    }
+
+    /**
+     * Creates an empty column in a memory mapped file, which is replaced. When the
+     * arena is closed the file holds the values of the column in native byte order.
+     *
+     * @param type {@link ColumnBatch.Type#INT INT}, {@link ColumnBatch.Type#LONG LONG} or
+     *             {@link ColumnBatch.Type#DOUBLE DOUBLE}
+     * @param file file to store the column in
+     * @return the column, unmapped when the arena is closed
+     * @throws IllegalArgumentException if the type is not numeric
+     * @throws IllegalStateException if the arena is closed
+     * @throws IOException if the file cannot be created
+     */
+    public OffHeapColumn map(@NotNull ColumnBatch.Type type, @NotNull Path file) throws IOException {
+        checkOpen();
+        OffHeapColumn.width(type);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return add(new OffHeapColumn(this, type, segmentSize, channel));
+    }
+
+    private OffHeapColumn add(OffHeapColumn column) {
+        checkOpen();
+        columns.add(column);
+        return column;
+    }
+
+    /**
+     * @return the number of bytes of the values of all columns
+     */
+    public long byteSize() {
+        long bytes = 0;
+        for (OffHeapColumn column : columns) bytes += column.byteSize();
+        return bytes;
+    }
+
+    /**
+     * @return <code>true</code> if the arena is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    void checkOpen() {
+        if (closed) throw new IllegalStateException("Arena closed");
+    }
+
+    /**
+     * Releases the memory of all columns and truncates and closes their mapped files.
+     *
+     * @throws IOException if a mapped file cannot be truncated or closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        IOException failure = null;
+        for (OffHeapColumn column : columns) {
+            try {
+                column.release();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        columns.clear();
+        if (failure != null) throw failure;
+    }
+
+    /* frees a direct or mapped buffer now, or leaves it to the garbage collector if the runtime does not allow it */
+    static void free(ByteBuffer buffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return;
+            }
+            Method cleaner = buffer.getClass().getMethod("cleaner");
+            cleaner.setAccessible(true);
+            Object c = cleaner.invoke(buffer);
+            if (c != null) c.getClass().getMethod("clean").invoke(c);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // released once the buffer is collected
+        }
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+
+/**
+ * A growable column of ints, longs or doubles stored outside of the Java heap, in
+ * direct memory or a memory mapped file, owned by an {@link OffHeapArena}.<br>
+ * The values are stored in native byte order in segments of equal size which are
+ * allocated or mapped as the column grows, so the column holds billions of values
+ * without copying them when it grows. The values are parsed by the bulk readers of
+ * {@link FastScanner} in chunks of {@value #CHUNK} values, which are copied to the
+ * segments, so only one chunk is ever held on the heap. The segments can be handed
+ * to native code or other consumers of direct buffers by {@link #segment(int)}.
+ */
+public final class OffHeapColumn {
+
+    /* number of values parsed into the heap before they are copied to the segments */
+    static final int CHUNK = 4096;
+
+    private final OffHeapArena arena;
+    private final ColumnBatch.Type type;
+    private final int width, segmentSize, shift;
+    private final long mask;
+    /* the channel of the mapped file, or null for direct memory */
+    private final FileChannel channel;
+    private ByteBuffer[] segments = new ByteBuffer[4];
+    private int segmentCount;
+    private long size;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+
+    OffHeapColumn(OffHeapArena arena, ColumnBatch.Type type, int segmentSize, FileChannel channel) {
+        this.arena = arena;
+        this.type = type;
+        this.width = width(type);
+        this.segmentSize = segmentSize;
+        this.shift = Integer.numberOfTrailingZeros(segmentSize / width);
+        this.mask = (1L << shift) - 1;
+        this.channel = channel;
+    }
+
+    /* the bytes of a value of the type */
+    static int width(ColumnBatch.Type type) {
+        switch (type) {
+            case INT: return 4;
+            case LONG: case DOUBLE: return 8;
+            default: throw new IllegalArgumentException("Not a numeric type: " + type);
+        }
+    }
+
+    /**
+     * @return the type of the values
+     */
+    public ColumnBatch.Type type() {
+        return type;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the number of bytes of the values
+     */
+    public long byteSize() {
+        return size * width;
+    }
+
+    /**
+     * @return <code>true</code> if the column is stored in a memory mapped file
+     */
+    public boolean isMapped() {
+        return channel != null;
+    }
+
+    /**
+     * Reads all remaining values of the scanner into the column without validating
+     * them, like the <tt>readIntsFast()</tt>, <tt>readLongsFast()</tt> or
+     * <tt>readDoublesFast()</tt> method of the type.
+     *
+     * @param scanner scanner to read from
+     * @return the number of values read
+     * @throws IllegalStateException if the arena is closed
+     * @throws IOException if i/o error occurs or a segment cannot be mapped
+     */
+    public long readFast(@NotNull FastScanner scanner) throws IOException {
+        return read(scanner, false);
+    }
+
+    /**
+     * Reads and validates all remaining values of the scanner into the column, like
+     * the <tt>readIntsStrict()</tt>, <tt>readLongsStrict()</tt> or <tt>readDoublesStrict()</tt>
+     * method of the type.
+     *
+     * @param scanner scanner to read from
+     * @return the number of values read
+     * @throws InputMismatchException
+     *         if a token is not a valid number of the type, the values read
+     *         since the last full chunk before it are not appended
+     * @throws IllegalStateException if the arena is closed
+     * @throws IOException if i/o error occurs or a segment cannot be mapped
+     */
+    public long readStrict(@NotNull FastScanner scanner) throws IOException {
+        return read(scanner, true);
+    }
+
+    private long read(FastScanner scanner, boolean strict) throws IOException {
+        arena.checkOpen();
+        long start = size;
+        int n;
+        switch (type) {
+            case INT:
+                if (ints == null) ints = new int[CHUNK];
+                do {
+                    n = strict ? scanner.readIntsStrict(ints, 0, CHUNK) : scanner.readIntsFast(ints, 0, CHUNK);
+                    for (int i = 0, k; i < n; i += k) {
+                        ByteBuffer segment = writable();
+                        k = room(n - i);
+                        ((ByteBuffer) segment.position(position(size))).asIntBuffer().put(ints, i, k);
+                        size += k;
+                    }
+                } while (n == CHUNK);
+                break;
+            case LONG:
+                if (longs == null) longs = new long[CHUNK];
+                do {
+                    n = strict ? scanner.readLongsStrict(longs, 0, CHUNK) : scanner.readLongsFast(longs, 0, CHUNK);
+                    for (int i = 0, k; i < n; i += k) {
+                        ByteBuffer segment = writable();
+                        k = room(n - i);
+                        ((ByteBuffer) segment.position(position(size))).asLongBuffer().put(longs, i, k);
+                        size += k;
+                    }
+                } while (n == CHUNK);
+                break;
+            default:
+                if (doubles == null) doubles = new double[CHUNK];
+                do {
+                    n = strict ? scanner.readDoublesStrict(doubles, 0, CHUNK) : scanner.readDoublesFast(doubles, 0, CHUNK);
+                    for (int i = 0, k; i < n; i += k) {
+                        ByteBuffer segment = writable();
+                        k = room(n - i);
+                        ((ByteBuffer) segment.position(position(size))).asDoubleBuffer().put(doubles, i, k);
+                        size += k;
+                    }
+                } while (n == CHUNK);
+        }
+        return size - start;
+    }
+
+    /* the number of up to n values which fit the segment of the next value */
+    private int room(int n) {
+        return (int) Math.min(n, mask + 1 - (size & mask));
+    }
+
+    /* the byte position of the value in its segment */
+    private int position(long index) {
+        return (int) (index & mask) * width;
+    }
+
+    /* the segment of the next value, allocated or mapped if the column is full */
+    private ByteBuffer writable() throws IOException {
+        int s = (int) (size >>> shift);
+        if (s < segmentCount) return segments[s];
+        if (s == segments.length) segments = Arrays.copyOf(segments, s << 1);
+        ByteBuffer segment = channel == null ? ByteBuffer.allocateDirect(segmentSize)
+                : channel.map(FileChannel.MapMode.READ_WRITE, (long) s * segmentSize, segmentSize);
+        segments[segmentCount++] = segment.order(ByteOrder.nativeOrder());
+        return segment;
+    }
+
+    /**
+     * Appends a value to an int column.
+     *
+     * @throws IllegalStateException if the column is not an int column or the arena is closed
+     * @throws IOException if a segment cannot be mapped
+     */
+    public void addInt(int value) throws IOException {
+        check(ColumnBatch.Type.INT);
+        writable().putInt(position(size++), value);
+    }
+
+    /**
+     * Appends a value to a long column.
+     *
+     * @throws IllegalStateException if the column is not a long column or the arena is closed
+     * @throws IOException if a segment cannot be mapped
+     */
+    public void addLong(long value) throws IOException {
+        check(ColumnBatch.Type.LONG);
+        writable().putLong(position(size++), value);
+    }
+
+    /**
+     * Appends a value to a double column.
+     *
+     * @throws IllegalStateException if the column is not a double column or the arena is closed
+     * @throws IOException if a segment cannot be mapped
+     */
+    public void addDouble(double value) throws IOException {
+        check(ColumnBatch.Type.DOUBLE);
+        writable().putDouble(position(size++), value);
+    }
+
+    /**
+     * @param index index of the value
+     * @return the value of an int column
+     * @throws IllegalStateException if the column is not an int column or the arena is closed
+     * @throws IndexOutOfBoundsException if the index is not below the size
+     */
+    public int getInt(long index) {
+        check(ColumnBatch.Type.INT);
+        return segmentOf(index).getInt(position(index));
+    }
+
+    /**
+     * @param index index of the value
+     * @return the value of a long column
+     * @throws IllegalStateException if the column is not a long column or the arena is closed
+     * @throws IndexOutOfBoundsException if the index is not below the size
+     */
+    public long getLong(long index) {
+        check(ColumnBatch.Type.LONG);
+        return segmentOf(index).getLong(position(index));
+    }
+
+    /**
+     * @param index index of the value
+     * @return the value of a double column
+     * @throws IllegalStateException if the column is not a double column or the arena is closed
+     * @throws IndexOutOfBoundsException if the index is not below the size
+     */
+    public double getDouble(long index) {
+        check(ColumnBatch.Type.DOUBLE);
+        return segmentOf(index).getDouble(position(index));
+    }
+
+    private void check(ColumnBatch.Type expected) {
+        arena.checkOpen();
+        if (type != expected) throw new IllegalStateException("Column of type " + type);
+    }
+
+    private ByteBuffer segmentOf(long index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        return segments[(int) (index >>> shift)];
+    }
+
+    /**
+     * @return the number of segments holding values
+     */
+    public int segmentCount() {
+        return (int) ((size + mask) >>> shift);
+    }
+
+    /**
+     * Returns a read-only view of the values of a segment in native byte order,
+     * from position 0 to the limit. The view is a direct buffer, so its address can
+     * be taken by native code, and is valid until the arena is closed. Every segment
+     * but the last is full.
+     *
+     * @param segment index of the segment, below {@link #segmentCount()}
+     * @return the values of the segment
+     * @throws IllegalStateException if the arena is closed
+     * @throws IndexOutOfBoundsException if there is no such segment
+     */
+    public ByteBuffer segment(int segment) {
+        arena.checkOpen();
+        if (segment < 0 || segment >= segmentCount())
+            throw new IndexOutOfBoundsException("Segment: " + segment + ", segments: " + segmentCount());
+        ByteBuffer view = segments[segment].asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+        long values = Math.min(size - ((long) segment << shift), mask + 1);
+        view.clear().limit((int) values * width);
+        return view;
+    }
+
+    /**
+     * Writes the values of a mapped column to the storage device, does nothing for
+     * direct memory.
+     *
+     * @throws IllegalStateException if the arena is closed
+     */
+    public void force() {
+        arena.checkOpen();
+        if (channel == null) return;
+        for (int s = 0; s < segmentCount; s++) ((MappedByteBuffer) segments[s]).force();
+    }
+
+    /* frees the segments, then truncates and closes the mapped file, called by the arena */
+    void release() throws IOException {
+        for (int s = 0; s < segmentCount; s++) {
+            OffHeapArena.free(segments[s]);
+            segments[s] = null;
+        }
+        segmentCount = 0;
+        if (channel == null) return;
+        try {
+            // mapping segments extends the file to whole segments
+            channel.truncate(size * width);
+        } finally {
+            channel.close();
+        }
+    }
+}
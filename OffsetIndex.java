@@ -0,0 +1,204 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A sparse index of the byte offsets of every Nth line and every Nth token of a
+ * file, so a scanner can jump to a line or token of a huge file without reading
+ * what is before it, see {@link FastScanner#seekLine(OffsetIndex, long)} and
+ * {@link FastScanner#seekToken(OffsetIndex, long)}. A seek moves to the nearest
+ * indexed offset and reads at most N-1 lines or tokens from there.<br>
+ * The index is built in a single pass over the file, can be written to a file and
+ * read back, and records the size and modification time of the file it indexes.
+ * Lines and tokens are counted like <tt>nextLine()</tt> and <tt>next()</tt> count
+ * them.
+ *
+ * <pre>{@code
+ *  OffsetIndex index = OffsetIndex.build(path, 4096);
+ *  index.write(indexPath);
+ *  FastScanner scanner = new FastScanner(path).seekLine(OffsetIndex.read(indexPath), 40_000_000);
+ * }</pre>
+ */
+public final class OffsetIndex {
+
+    private static final long MAGIC = 0x31584449_53435346L; // "FSCIDX1"
+    private static final int HEADER_SIZE = 64;
+    private static final int READ_SIZE = 1<<20;
+
+    private final int interval;
+    private final long size, modified, lines, tokens;
+    private final long[] lineOffsets, tokenOffsets;
+
+    private OffsetIndex(int interval, long size, long modified, long lines, long tokens,
+                        long[] lineOffsets, long[] tokenOffsets) {
+        this.interval = interval;
+        this.size = size;
+        this.modified = modified;
+        this.lines = lines;
+        this.tokens = tokens;
+        this.lineOffsets = lineOffsets;
+        this.tokenOffsets = tokenOffsets;
+    }
+
+    /**
+     * Reads the file once and records the offsets of every <code>interval</code>-th
+     * line and token.
+     *
+     * @param file     file to index
+     * @param interval number of lines and tokens between two indexed offsets
+     * @return the index of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static OffsetIndex build(@NotNull Path file, int interval) throws IOException {
+        if (interval <= 0) throw new IllegalArgumentException("Invalid interval: " + interval);
+        long[] lineOffsets = new long[16], tokenOffsets = new long[16];
+        long lines = 0, tokens = 0, size, modified = Files.getLastModifiedTime(file).toMillis();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+            byte[] b = buffer.array();
+            // at a line start, in a token and after a '\r' whose '\n' belongs to the same line break
+            boolean lineStart = true, inToken = false, carriageReturn = false;
+            long position = 0;
+            int n;
+            while (true) {
+                buffer.clear();
+                if ((n = channel.read(buffer, position)) <= 0) break;
+                for (int i = 0; i < n; i++) {
+                    byte c = b[i];
+                    if (c == '\n' && carriageReturn) {
+                        carriageReturn = false;
+                        continue;
+                    }
+                    carriageReturn = c == '\r';
+                    if (lineStart) {
+                        if (lines % interval == 0) lineOffsets = put(lineOffsets, lines / interval, position + i);
+                        lines++;
+                        lineStart = false;
+                    }
+                    if (c == '\n' || c == '\r') lineStart = true;
+                    boolean separator = c >= 0 && c <= ' ';
+                    if (!separator && !inToken) {
+                        if (tokens % interval == 0) tokenOffsets = put(tokenOffsets, tokens / interval, position + i);
+                        tokens++;
+                    }
+                    inToken = !separator;
+                }
+                position += n;
+            }
+        }
+        return new OffsetIndex(interval, size, modified, lines, tokens,
+                Arrays.copyOf(lineOffsets, samples(lines, interval)), Arrays.copyOf(tokenOffsets, samples(tokens, interval)));
+    }
+
+    private static long[] put(long[] offsets, long i, long offset) {
+        if (i == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        offsets[(int) i] = offset;
+        return offsets;
+    }
+
+    private static int samples(long count, int interval) {
+        return (int) ((count + interval - 1) / interval);
+    }
+
+    /**
+     * Reads an index written by {@link #write(Path)}.
+     *
+     * @param indexFile file holding the index
+     * @return the index
+     * @throws IOException if the file cannot be read or holds no index
+     */
+    public static OffsetIndex read(@NotNull Path indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            if (header.getLong(0) != MAGIC) throw new IOException("Not an offset index: " + indexFile);
+            int interval = header.getInt(8);
+            long size = header.getLong(16), modified = header.getLong(24), lines = header.getLong(32), tokens = header.getLong(40);
+            int lineSamples = samples(lines, interval), tokenSamples = samples(tokens, interval);
+            if (channel.size() != HEADER_SIZE + 8L * (lineSamples + tokenSamples))
+                throw new IOException("Truncated offset index: " + indexFile);
+            long[] lineOffsets = new long[lineSamples], tokenOffsets = new long[tokenSamples];
+            readFully(channel, HEADER_SIZE, 8 * lineSamples).asLongBuffer().get(lineOffsets);
+            readFully(channel, HEADER_SIZE + 8L * lineSamples, 8 * tokenSamples).asLongBuffer().get(tokenOffsets);
+            return new OffsetIndex(interval, size, modified, lines, tokens, lineOffsets, tokenOffsets);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) ;
+        if (buffer.hasRemaining()) throw new IOException("Truncated offset index");
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Writes the index, replacing the file.
+     *
+     * @param indexFile file to write the index to
+     * @throws IOException if the file cannot be written
+     */
+    public void write(@NotNull Path indexFile) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 8 * (lineOffsets.length + tokenOffsets.length))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(MAGIC).putInt(interval).putInt(0).putLong(size).putLong(modified)
+                .putLong(lines).putLong(tokens).position(HEADER_SIZE);
+        buffer.asLongBuffer().put(lineOffsets).put(tokenOffsets);
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    /**
+     * Tells if the file still has the size and modification time it had when it was indexed.
+     *
+     * @param file the indexed file
+     * @return <code>true</code> if the index matches the file
+     * @throws IOException if the file cannot be read
+     */
+    public boolean matches(@NotNull Path file) throws IOException {
+        return Files.size(file) == size && Files.getLastModifiedTime(file).toMillis() == modified;
+    }
+
+    /**
+     * @return the number of lines and tokens between two indexed offsets
+     */
+    public int interval() {
+        return interval;
+    }
+
+    /**
+     * @return the number of lines of the file
+     */
+    public long lines() {
+        return lines;
+    }
+
+    /**
+     * @return the number of tokens of the file
+     */
+    public long tokens() {
+        return tokens;
+    }
+
+    /* the size of the indexed file */
+    long size() {
+        return size;
+    }
+
+    /* the offset of the last indexed line at or before the line, which must exist */
+    long lineOffset(long line) {
+        return lineOffsets[(int) (line / interval)];
+    }
+
+    long tokenOffset(long token) {
+        return tokenOffsets[(int) (token / interval)];
+    }
+}
@@ -0,0 +1,303 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses a large file on all cores of a {@linkplain ForkJoinPool ForkJoinPool}.<br>
+ * The file is split into chunks at separator bytes, so no token is split between two
+ * chunks, and every chunk is parsed by its own memory mapped {@link FastScanner}
+ * using the same Fast and Strict rules as a single scanner. The results are
+ * always returned in file order.
+ *
+ * <pre>{@code
+ *  long[] values = new ParallelFastScanner(path).readLongsFast();
+ * }</pre>
+ */
+public class ParallelFastScanner {
+
+    private static final long MIN_CHUNK_SIZE = 1<<20;
+    private static final int CHUNK_BUFFER_SIZE = 1<<16;
+
+    private final Path path;
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+
+    /**
+     * A function parsing a single chunk of the file.
+     *
+     * @param <R> type of the result of a chunk
+     */
+    public interface ChunkParser<R> {
+        /**
+         * Parses a chunk of the file. Chunks are parsed concurrently.
+         *
+         * @param chunk   index of the chunk in file order
+         * @param scanner scanner reading only the chunk
+         * @return the result of the chunk
+         * @throws IOException if i/o error occurs
+         */
+        R parse(int chunk, FastScanner scanner) throws IOException;
+    }
+
+    /**
+     * Constructs a parser of the file which runs on the common ForkJoinPool.
+     *
+     * @param path Path of file to read from
+     */
+    public ParallelFastScanner(@NotNull Path path) {
+        this(path, ForkJoinPool.commonPool(), 0);
+    }
+
+    /**
+     * Constructs a parser of the file which runs on the provided ForkJoinPool.
+     *
+     * @param path      Path of file to read from
+     * @param pool      pool to parse the chunks on
+     * @param chunkSize approximate size of a chunk in bytes, or 0 to derive it
+     *                  from the file size and the parallelism of the pool
+     */
+    public ParallelFastScanner(@NotNull Path path, @NotNull ForkJoinPool pool, long chunkSize) {
+        this.path = Objects.requireNonNull(path, "Path cannot be null");
+        this.pool = Objects.requireNonNull(pool, "Pool cannot be null");
+        if (chunkSize < 0) throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Splits the file into chunks and parses them in parallel.
+     *
+     * @param parser function parsing a single chunk
+     * @param <R>    type of the result of a chunk
+     * @return the results of the chunks in file order
+     * @throws IOException if the file cannot be read or the parser fails
+     */
+    public <R> List<R> mapChunks(@NotNull ChunkParser<R> parser) throws IOException {
+        Objects.requireNonNull(parser, "Parser cannot be null");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = split(channel);
+            Object[] results = new Object[bounds.length - 1];
+            try {
+                pool.invoke(new ChunkTask<>(channel, bounds, 0, results.length, parser, results));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            List<R> list = new ArrayList<>(results.length);
+            for (Object result : results) {
+                @SuppressWarnings("unchecked") R r = (R) result;
+                list.add(r);
+            }
+            return list;
+        }
+    }
+
+    /**
+     *  Reads all the integers in the file, see <tt>FastScanner.nextIntFast()</tt>.
+     *
+     *  @return the values in file order
+     *  @throws IOException if i/o error occurs
+     * */
+    public int[] readIntsFast() throws IOException {
+        return concatInts(mapChunks((chunk, scanner) -> readInts(scanner, false)));
+    }
+
+    /**
+     *  Reads and validates all the integers in the file, see <tt>FastScanner.nextIntStrict()</tt>.
+     *
+     *  @return the values in file order
+     *  @throws java.util.InputMismatchException
+     *          if a token does not match the Integer regular expression, or is out of range
+     *  @throws IOException if i/o error occurs
+     * */
+    public int[] readIntsStrict() throws IOException {
+        return concatInts(mapChunks((chunk, scanner) -> readInts(scanner, true)));
+    }
+
+    /**
+     *  Reads all the long values in the file, see <tt>FastScanner.nextLongFast()</tt>.
+     *
+     *  @return the values in file order
+     *  @throws IOException if i/o error occurs
+     * */
+    public long[] readLongsFast() throws IOException {
+        return concatLongs(mapChunks((chunk, scanner) -> readLongs(scanner, false)));
+    }
+
+    /**
+     *  Reads and validates all the long values in the file, see <tt>FastScanner.nextLongStrict()</tt>.
+     *
+     *  @return the values in file order
+     *  @throws java.util.InputMismatchException
+     *          if a token does not match the Long regular expression, or is out of range
+     *  @throws IOException if i/o error occurs
+     * */
+    public long[] readLongsStrict() throws IOException {
+        return concatLongs(mapChunks((chunk, scanner) -> readLongs(scanner, true)));
+    }
+
+    /**
+     *  Reads all the double values in the file, see <tt>FastScanner.nextDoubleFast()</tt>.
+     *
+     *  @return the values in file order
+     *  @throws IOException if i/o error occurs
+     * */
+    public double[] readDoublesFast() throws IOException {
+        return concatDoubles(mapChunks((chunk, scanner) -> readDoubles(scanner, false)));
+    }
+
+    /**
+     *  Reads and validates all the double values in the file, see <tt>FastScanner.nextDoubleStrict()</tt>.
+     *
+     *  @return the values in file order
+     *  @throws java.util.InputMismatchException
+     *          if a token does not match the decimal number format
+     *  @throws IOException if i/o error occurs
+     * */
+    public double[] readDoublesStrict() throws IOException {
+        return concatDoubles(mapChunks((chunk, scanner) -> readDoubles(scanner, true)));
+    }
+
+    /* returns the chunk boundaries, chunk i spans [bounds[i], bounds[i+1]) */
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = chunkSize > 0 ? chunkSize
+                : Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4L));
+        List<Long> bounds = new ArrayList<>();
+        long position = 0;
+        do {
+            bounds.add(position);
+            position = MappedFileInputStream.nextTokenBoundary(channel, position + target, size);
+        } while (position < size);
+        bounds.add(size);
+
+        long[] array = new long[bounds.size()];
+        for (int i = 0; i < array.length; i++) array[i] = bounds.get(i);
+        return array;
+    }
+
+    private static final class ChunkTask<R> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int from, to;
+        private final ChunkParser<R> parser;
+        private final Object[] results;
+
+        ChunkTask(FileChannel channel, long[] bounds, int from, int to, ChunkParser<R> parser, Object[] results) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.parser = parser;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask<>(channel, bounds, from, mid, parser, results),
+                        new ChunkTask<>(channel, bounds, mid, to, parser, results));
+                return;
+            }
+            FastScanner scanner = new FastScanner(
+                    new MappedFileInputStream(channel, bounds[from], bounds[from + 1], false), CHUNK_BUFFER_SIZE);
+            try {
+                results[from] = parser.parse(from, scanner);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /* the values of a chunk, count is the number of values used in the array */
+    static final class Values<A> {
+        final A array;
+        final int count;
+
+        Values(A array, int count) {
+            this.array = array;
+            this.count = count;
+        }
+    }
+
+    static Values<int[]> readInts(FastScanner scanner, boolean strict) throws IOException {
+        int[] values = new int[1<<10];
+        int count = 0, n;
+        do {
+            if (count == values.length) values = Arrays.copyOf(values, count << 1);
+            n = strict ? scanner.readIntsStrict(values, count, values.length - count)
+                    : scanner.readIntsFast(values, count, values.length - count);
+            count += n;
+        } while (count == values.length);
+        return new Values<>(values, count);
+    }
+
+    static Values<long[]> readLongs(FastScanner scanner, boolean strict) throws IOException {
+        long[] values = new long[1<<10];
+        int count = 0, n;
+        do {
+            if (count == values.length) values = Arrays.copyOf(values, count << 1);
+            n = strict ? scanner.readLongsStrict(values, count, values.length - count)
+                    : scanner.readLongsFast(values, count, values.length - count);
+            count += n;
+        } while (count == values.length);
+        return new Values<>(values, count);
+    }
+
+    static Values<double[]> readDoubles(FastScanner scanner, boolean strict) throws IOException {
+        double[] values = new double[1<<10];
+        int count = 0, n;
+        do {
+            if (count == values.length) values = Arrays.copyOf(values, count << 1);
+            n = strict ? scanner.readDoublesStrict(values, count, values.length - count)
+                    : scanner.readDoublesFast(values, count, values.length - count);
+            count += n;
+        } while (count == values.length);
+        return new Values<>(values, count);
+    }
+
+    static int[] concatInts(List<Values<int[]>> chunks) {
+        int total = 0;
+        for (Values<int[]> chunk : chunks) total = Math.addExact(total, chunk.count);
+        int[] all = new int[total];
+        int i = 0;
+        for (Values<int[]> chunk : chunks) {
+            System.arraycopy(chunk.array, 0, all, i, chunk.count);
+            i += chunk.count;
+        }
+        return all;
+    }
+
+    static long[] concatLongs(List<Values<long[]>> chunks) {
+        int total = 0;
+        for (Values<long[]> chunk : chunks) total = Math.addExact(total, chunk.count);
+        long[] all = new long[total];
+        int i = 0;
+        for (Values<long[]> chunk : chunks) {
+            System.arraycopy(chunk.array, 0, all, i, chunk.count);
+            i += chunk.count;
+        }
+        return all;
+    }
+
+    static double[] concatDoubles(List<Values<double[]>> chunks) {
+        int total = 0;
+        for (Values<double[]> chunk : chunks) total = Math.addExact(total, chunk.count);
+        double[] all = new double[total];
+        int i = 0;
+        for (Values<double[]> chunk : chunks) {
+            System.arraycopy(chunk.array, 0, all, i, chunk.count);
+            i += chunk.count;
+        }
+        return all;
+    }
+}
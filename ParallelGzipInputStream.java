@@ -0,0 +1,301 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a gzip file on several threads, one task per group of members.<br>
+ * The members of a file made of several concatenated members, such as appended logs
+ * or the blocks written by bgzip, can only be told apart by inflating them, so the
+ * file is split into ranges and each task starts at the first offset of its range
+ * which looks like a member header. A task inflates its members one after another
+ * and verifies each one by the CRC and length of its trailer, until it passes the
+ * start of the next task.<br>
+ * The stream reads the tasks in file order and only continues with a task which
+ * starts exactly where the members read so far ended. A task started at bytes which
+ * only look like a header is dropped, and a gap left by it is inflated by a new
+ * task, so the output equals that of a sequential decompression. A file of a single
+ * member is inflated by one task, pipelined with the reading thread.
+ */
+final class ParallelGzipInputStream extends InputStream {
+
+    /* size of the output chunks handed to the reader */
+    private static final int CHUNK_SIZE = 1<<16;
+    /* chunks a task may inflate ahead of the reader, which bounds the memory of every task */
+    private static final int QUEUED_CHUNKS = 16;
+    private static final long MIN_RANGE = 1L<<22;
+    private static final int READ_SIZE = 1<<16;
+    private static final byte[] END = new byte[0];
+
+    private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16, RESERVED = 0xE0;
+
+    private final FileChannel channel;
+    private final long size, range;
+    private final int threads;
+    private final ThreadFactory threadFactory;
+    /* tasks started after the current one, in file order */
+    private final ArrayDeque<Task> ahead = new ArrayDeque<>();
+    /* the limit of the last started task, where the next one starts */
+    private long next;
+    private Task current;
+    private byte[] chunk = END;
+    private int chunkPos;
+
+    ParallelGzipInputStream(FileChannel channel, int threads, ThreadFactory threadFactory) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.threads = threads;
+        this.threadFactory = threadFactory;
+        this.range = Math.max(MIN_RANGE, size / (4L * threads));
+        this.next = findHeader(range);
+        this.current = start(0, next);
+        startAhead();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (chunkPos == chunk.length && !nextChunk()) return -1;
+        return chunk[chunkPos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (chunkPos == chunk.length && !nextChunk()) return -1;
+        int n = Math.min(len, chunk.length - chunkPos);
+        System.arraycopy(chunk, chunkPos, b, off, n);
+        chunkPos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return chunk.length - chunkPos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (current != null) current.cancelled = true;
+        current = null;
+        for (Task task : ahead) task.cancelled = true;
+        ahead.clear();
+        chunk = END;
+        channel.close();
+    }
+
+    private boolean nextChunk() throws IOException {
+        while (current != null) {
+            byte[] c = current.take();
+            if (c != END) {
+                chunk = c;
+                chunkPos = 0;
+                return true;
+            }
+            long end = current.end;
+            if (end >= size) {
+                close();
+                return false;
+            }
+            // the tasks before the end of the last member started at bytes which only look like a header
+            while (!ahead.isEmpty() && ahead.peekFirst().start < end) ahead.pollFirst().cancelled = true;
+            if (!ahead.isEmpty() && ahead.peekFirst().start == end) {
+                current = ahead.pollFirst();
+            } else {
+                long limit = !ahead.isEmpty() ? ahead.peekFirst().start : next > end ? next : (next = findHeader(end + range));
+                current = start(end, limit);
+            }
+            startAhead();
+        }
+        return false;
+    }
+
+    private void startAhead() throws IOException {
+        while (ahead.size() < threads - 1 && next < size) {
+            long start = next;
+            next = findHeader(start + range);
+            ahead.addLast(start(start, next));
+        }
+    }
+
+    private Task start(long start, long limit) {
+        Task task = new Task(start, limit);
+        threadFactory.newThread(task).start();
+        return task;
+    }
+
+    /* the first offset from the position on which bytes look like a member header, or the size */
+    private long findHeader(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+        byte[] b = buffer.array();
+        while (position < size) {
+            buffer.clear();
+            int n = 0, k;
+            while (n < b.length && (k = channel.read(buffer, position + n)) > 0) n += k;
+            for (int i = 0; i + 10 <= n; i++) {
+                if (b[i] == 0x1F && (b[i + 1] & 0xFF) == 0x8B && b[i + 2] == 8 && (b[i + 3] & RESERVED) == 0) return position + i;
+            }
+            if (n < b.length) break;
+            // the last bytes may start a header which continues in the next read
+            position += n - 9;
+        }
+        return size;
+    }
+
+    /* inflates the members from the start on until one ends at or after the limit */
+    private final class Task implements Runnable {
+
+        final long start, limit;
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+        /* written before END is queued */
+        private long end;
+        private IOException failure;
+        volatile boolean cancelled;
+
+        /* the compressed input of the task, read by position from the shared channel */
+        private final byte[] in = new byte[READ_SIZE];
+        private long inOffset;
+        private int inPos, inLimit;
+
+        Task(long start, long limit) {
+            this.start = start;
+            this.limit = limit;
+            this.inOffset = start;
+        }
+
+        @Override
+        public void run() {
+            Inflater inflater = new Inflater(true);
+            CRC32 crc = new CRC32();
+            byte[] out = new byte[CHUNK_SIZE];
+            int outPos = 0;
+            try {
+                long member = start;
+                while (true) {
+                    if (!header()) {
+                        if (member == start) throw new ZipException("Not in GZIP format");
+                        // trailing bytes which are no member are ignored like GZIPInputStream does
+                        member = size;
+                        break;
+                    }
+                    inflater.reset();
+                    crc.reset();
+                    // the input after inPos is handed to the inflater, which tells how much it left
+                    inflater.setInput(in, inPos, inLimit - inPos);
+                    inPos = inLimit;
+                    while (!inflater.finished()) {
+                        if (inflater.needsInput()) {
+                            if (!fill()) throw new EOFException("Unexpected end of ZLIB input stream");
+                            inflater.setInput(in, 0, inLimit);
+                            inPos = inLimit;
+                        }
+                        int n = inflater.inflate(out, outPos, out.length - outPos);
+                        if (n == 0 && inflater.needsDictionary()) throw new ZipException("Invalid gzip member");
+                        crc.update(out, outPos, n);
+                        outPos += n;
+                        if (outPos == out.length) {
+                            if (!put(out)) return;
+                            out = new byte[CHUNK_SIZE];
+                            outPos = 0;
+                        }
+                    }
+                    inPos = inLimit - inflater.getRemaining();
+                    if (readInt() != (int) crc.getValue() || readInt() != (int) inflater.getBytesWritten())
+                        throw new ZipException("Corrupt GZIP trailer");
+                    member = inOffset + inPos;
+                    if (member >= limit || member >= size) break;
+                }
+                if (outPos > 0 && !put(Arrays.copyOf(out, outPos))) return;
+                end = member;
+            } catch (IOException e) {
+                failure = e;
+            } catch (DataFormatException e) {
+                failure = new ZipException(e.getMessage() == null ? "Invalid ZLIB data format" : e.getMessage());
+            } finally {
+                inflater.end();
+            }
+            put(END);
+        }
+
+        /* blocks while the queue is full, returns false once the task is cancelled */
+        private boolean put(byte[] chunk) {
+            try {
+                while (!chunks.offer(chunk, 10, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) return false;
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        byte[] take() throws IOException {
+            byte[] c;
+            try {
+                c = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompressed input");
+            }
+            if (c == END && failure != null) throw failure;
+            return c;
+        }
+
+        /* reads and skips a member header, returns false if the bytes are no header */
+        private boolean header() throws IOException {
+            if (readByte() != 0x1F || readByte() != 0x8B || readByte() != 8) return false;
+            int flags = readByte();
+            if (flags < 0 || (flags & RESERVED) != 0) return false;
+            for (int i = 0; i < 6; i++) if (readByte() < 0) return false;
+            if ((flags & FEXTRA) != 0) {
+                int b0 = readByte(), b1 = readByte();
+                if (b1 < 0) return false;
+                for (int i = b0 | b1 << 8; i > 0; i--) if (readByte() < 0) return false;
+            }
+            if ((flags & FNAME) != 0 && !skipString()) return false;
+            if ((flags & FCOMMENT) != 0 && !skipString()) return false;
+            return (flags & FHCRC) == 0 || readByte() >= 0 && readByte() >= 0;
+        }
+
+        private boolean skipString() throws IOException {
+            int b;
+            while ((b = readByte()) > 0) ;
+            return b == 0;
+        }
+
+        private int readInt() throws IOException {
+            int b0 = readByte(), b1 = readByte(), b2 = readByte(), b3 = readByte();
+            if (b3 < 0) throw new EOFException("Unexpected end of GZIP trailer");
+            return b0 | b1 << 8 | b2 << 16 | b3 << 24;
+        }
+
+        private int readByte() throws IOException {
+            if (inPos == inLimit && !fill()) return -1;
+            return in[inPos++] & 0xFF;
+        }
+
+        /* reads the input after the consumed bytes, returns false at the end of the file */
+        private boolean fill() throws IOException {
+            if (cancelled) throw new IOException("Cancelled");
+            inOffset += inPos;
+            inPos = inLimit = 0;
+            ByteBuffer buffer = ByteBuffer.wrap(in);
+            int k;
+            while (buffer.hasRemaining() && (k = channel.read(buffer, inOffset + buffer.position())) > 0) ;
+            inLimit = buffer.position();
+            return inLimit > 0;
+        }
+    }
+}
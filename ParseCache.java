@@ -0,0 +1,459 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.zip.CRC32;
+
+/**
+ * A binary sidecar of a text file of numbers holding the parsed values, so repeated
+ * runs over the same file skip parsing.<br>
+ * {@link #write(Path)} parses the file once and writes its values next to it as
+ * <code>&lt;file&gt;.fsc</code>. A scanner opened on the file by
+ * {@link FastScanner#FastScanner(Path)}, {@link FastScanner#FastScanner(java.io.File)} or the
+ * {@linkplain FastScanner.Builder#parseCache(boolean) builder} then memory maps the
+ * sidecar and serves the integer and double methods, <tt>hasNext()</tt> and the
+ * <tt>ints()</tt>, <tt>longs()</tt> and <tt>doubles()</tt> streams straight from it,
+ * with the same results as parsing the text. The first other read, such as
+ * <tt>nextLine()</tt>, continues in the text file at the same token.<br>
+ * The sidecar records the size, the modification time and a hash of sampled blocks
+ * of the file and is ignored once the file has changed. Only files whose tokens are
+ * all integers or all decimal numbers are cached; for other files the sidecar only
+ * records that, so they are not parsed again to find out.
+ *
+ * <pre>{@code
+ *  ParseCache.write(path);
+ *  long[] values = new long[n];
+ *  new FastScanner(path).readLongsFast(values, 0, n);
+ * }</pre>
+ */
+public final class ParseCache {
+
+    private static final long MAGIC = 0x31454843_41435346L; // "FSCACHE1"
+    private static final int HEADER_SIZE = 64;
+    private static final int NONE = 0, LONGS = 1, DOUBLES = 2;
+    /* a text offset is kept for every 2^SAMPLE_SHIFT tokens */
+    private static final int SAMPLE_SHIFT = 10;
+    /* values per mapped segment */
+    private static final int SEGMENT_SHIFT = 27;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    /* blocks of the file hashed for the validation, the whole file if it is small */
+    private static final int HASH_BLOCK = 1<<12, HASH_BLOCKS = 64, HASH_EDGE = 1<<16;
+    private static final String SUFFIX = ".fsc";
+
+    private final Path file;
+    private final boolean integers;
+    private final long tokens;
+    private final LongBuffer[] segments;
+    private long index;
+    /* hasNext() was called since the last value, which skips the separators in the text */
+    private boolean separatorsSkipped;
+
+    private ParseCache(Path file, boolean integers, long tokens, LongBuffer[] segments) {
+        this.file = file;
+        this.integers = integers;
+        this.tokens = tokens;
+        this.segments = segments;
+    }
+
+    /**
+     * @param source text file
+     * @return the path of the sidecar of the file
+     */
+    public static Path sidecar(@NotNull Path source) {
+        return source.resolveSibling(source.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Parses the file and writes its sidecar, replacing an older one.
+     *
+     * @param source text file to cache
+     * @return <code>true</code> if the values were cached, <code>false</code> if the
+     *         file holds tokens which are not numbers
+     * @throws IOException if the file cannot be read or the sidecar cannot be written
+     */
+    public static boolean write(@NotNull Path source) throws IOException {
+        Path sidecar = sidecar(source);
+        Path tmp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        boolean cached;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            cached = new Writer(source, out).write();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        try {
+            Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return cached;
+    }
+
+    /**
+     * Tells if the file has an up to date sidecar, which may record that the file
+     * cannot be cached.
+     *
+     * @param source text file
+     * @return <code>true</code> if the sidecar matches the file
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isCurrent(@NotNull Path source) throws IOException {
+        try (FileChannel in = FileChannel.open(sidecar(source), StandardOpenOption.READ)) {
+            return readHeader(source, in) != null;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /* maps the values of an up to date sidecar of a cached file, or returns null */
+    static ParseCache open(Path source) throws IOException {
+        Path sidecar = sidecar(source);
+        if (!Files.isRegularFile(sidecar)) return null;
+        try (FileChannel in = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(source, in);
+            if (header == null) return null;
+            int type = header.getInt(32);
+            long tokens = header.getLong(40);
+            if (type == NONE || in.size() != HEADER_SIZE + (tokens + samples(tokens)) * 8) return null;
+            LongBuffer[] segments = new LongBuffer[(int) ((tokens + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long first = (long) i << SEGMENT_SHIFT, count = Math.min(tokens - first, 1L << SEGMENT_SHIFT);
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * 8, count * 8);
+                segments[i] = map.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            }
+            return new ParseCache(sidecar, type == LONGS, tokens, segments);
+        }
+    }
+
+    /* reads the header, or returns null if it does not match the current file */
+    private static ByteBuffer readHeader(Path source, FileChannel in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && in.read(header, header.position()) > 0) ;
+        if (header.hasRemaining() || header.getLong(0) != MAGIC) return null;
+        try (FileChannel text = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = text.size();
+            if (header.getLong(8) != size
+                    || header.getLong(16) != Files.getLastModifiedTime(source).toMillis()
+                    || header.getLong(24) != hash(text, size)) return null;
+        }
+        return header;
+    }
+
+    private static long samples(long tokens) {
+        return (tokens + (1L << SAMPLE_SHIFT) - 1) >>> SAMPLE_SHIFT;
+    }
+
+    /* CRC of the first and last bytes and of blocks spread over the file */
+    private static long hash(FileChannel text, long size) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer block = ByteBuffer.allocate(HASH_EDGE);
+        if (size <= 2L * HASH_EDGE + (long) HASH_BLOCKS * HASH_BLOCK) {
+            for (long p = 0; p < size; p += HASH_EDGE) hashBlock(text, p, (int) Math.min(HASH_EDGE, size - p), block, crc);
+        } else {
+            hashBlock(text, 0, HASH_EDGE, block, crc);
+            long step = (size - 2L * HASH_EDGE) / HASH_BLOCKS;
+            for (int i = 0; i < HASH_BLOCKS; i++) hashBlock(text, HASH_EDGE + i * step, HASH_BLOCK, block, crc);
+            hashBlock(text, size - HASH_EDGE, HASH_EDGE, block, crc);
+        }
+        return crc.getValue() ^ size << 32;
+    }
+
+    private static void hashBlock(FileChannel text, long position, int length, ByteBuffer block, CRC32 crc) throws IOException {
+        block.clear().limit(length);
+        while (block.hasRemaining() && text.read(block, position + block.position()) > 0) ;
+        crc.update(block.array(), 0, block.position());
+    }
+
+    boolean integers() {
+        return integers;
+    }
+
+    long index() {
+        return index;
+    }
+
+    /* moves to the token, which the text position then starts at */
+    void seek(long token) {
+        index = token;
+        separatorsSkipped = false;
+    }
+
+    boolean hasNext() {
+        separatorsSkipped = true;
+        return index < tokens;
+    }
+
+    private long value(long i) {
+        return segments[(int) (i >>> SEGMENT_SHIFT)].get((int) (i & SEGMENT_MASK));
+    }
+
+    private long nextValue() {
+        if (index >= tokens) throw new NoSuchElementException();
+        separatorsSkipped = false;
+        return value(index++);
+    }
+
+    long nextLong() {
+        return nextValue();
+    }
+
+    /* the next integer with magnitude at most limit, or limit+1 if negative, not consumed if out of range */
+    long nextInteger(long limit) {
+        if (index >= tokens) throw new NoSuchElementException();
+        long value = value(index);
+        if (value > limit || value < -limit - 1) throw new InputMismatchException();
+        separatorsSkipped = false;
+        index++;
+        return value;
+    }
+
+    double nextDouble() {
+        long value = nextValue();
+        return integers ? (double) value : Double.longBitsToDouble(value);
+    }
+
+    /* reads up to len integers, checked against the limit unless it is 0 */
+    int readInts(int[] dst, int off, int len, long limit) {
+        int n = (int) Math.min(len, tokens - index);
+        for (int i = off, end = off + n; i < end; i++) dst[i] = (int) (limit == 0 ? value(index++) : nextInteger(limit));
+        if (n > 0) separatorsSkipped = false;
+        return n;
+    }
+
+    int readShorts(short[] dst, int off, int len, long limit) {
+        int n = (int) Math.min(len, tokens - index);
+        for (int i = off, end = off + n; i < end; i++) dst[i] = (short) (limit == 0 ? value(index++) : nextInteger(limit));
+        if (n > 0) separatorsSkipped = false;
+        return n;
+    }
+
+    int readLongs(long[] dst, int off, int len) {
+        int n = (int) Math.min(len, tokens - index);
+        for (int done = 0; done < n; ) {
+            LongBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)].duplicate();
+            segment.position((int) (index & SEGMENT_MASK));
+            int k = Math.min(n - done, segment.remaining());
+            segment.get(dst, off + done, k);
+            done += k;
+            index += k;
+        }
+        if (n > 0) separatorsSkipped = false;
+        return n;
+    }
+
+    int readDoubles(double[] dst, int off, int len) {
+        int n = (int) Math.min(len, tokens - index);
+        for (int i = off, end = off + n; i < end; i++) dst[i] = nextDouble();
+        return n;
+    }
+
+    /* the remaining values as streams, which consume them at once like the text streams */
+    IntStream ints() {
+        long first = index;
+        index = tokens;
+        return LongStream.range(first, tokens).mapToInt(i -> {
+            long value = value(i);
+            if (value != (int) value) throw new InputMismatchException();
+            return (int) value;
+        });
+    }
+
+    LongStream longs() {
+        long first = index;
+        index = tokens;
+        return LongStream.range(first, tokens).map(this::value);
+    }
+
+    DoubleStream doubles() {
+        long first = index;
+        index = tokens;
+        return integers ? LongStream.range(first, tokens).mapToDouble(i -> (double) value(i))
+                : LongStream.range(first, tokens).mapToDouble(i -> Double.longBitsToDouble(value(i)));
+    }
+
+    /* the position in the text after the tokens read from the cache and the byte after the last one */
+    long textPosition(FileChannel text) throws IOException {
+        long sample = index == 0 ? 0 : Math.min(index >>> SAMPLE_SHIFT, samples(tokens) - 1);
+        long position = 0;
+        if (index > 0) {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer offset = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                long at = HEADER_SIZE + (tokens + sample) * 8;
+                while (offset.hasRemaining() && in.read(offset, at + offset.position()) > 0) ;
+                position = offset.getLong(0);
+            }
+        }
+        // skip the tokens after the sample like the scanner does, each with the byte after it,
+        // and the separators before the next token if hasNext() skipped them
+        long skip = index - (sample << SAMPLE_SHIFT);
+        if (skip == 0 && !separatorsSkipped) return position;
+        ByteBuffer buffer = ByteBuffer.allocate(1<<16);
+        byte[] b = buffer.array();
+        boolean inToken = false;
+        while (true) {
+            buffer.clear();
+            int n = text.read(buffer, position);
+            if (n <= 0) return position;
+            for (int i = 0; i < n; i++) {
+                boolean separator = b[i] >= 0 && b[i] <= ' ';
+                if (skip == 0) {
+                    if (!separator) return position + i;
+                } else if (inToken && separator) {
+                    inToken = false;
+                    if (--skip == 0) {
+                        if (!separatorsSkipped) return position + i + 1;
+                    }
+                } else if (!separator) {
+                    inToken = true;
+                }
+            }
+            position += n;
+        }
+    }
+
+    /* parses a text file into a sidecar, see write(Path) */
+    private static final class Writer {
+
+        private final Path source;
+        private final FileChannel out;
+        private final ByteBuffer values = ByteBuffer.allocateDirect(1<<16).order(ByteOrder.LITTLE_ENDIAN);
+        private long[] samples = new long[16];
+        private long tokens;
+        private int type = LONGS;
+        /* magnitudes which can take another digit without overflowing */
+        private static final long SAFE_MAGNITUDE = Long.MAX_VALUE / 10 - 1;
+        /* the value parsed by parseInteger() */
+        private long integer;
+
+        Writer(Path source, FileChannel out) {
+            this.source = source;
+            this.out = out;
+        }
+
+        boolean write() throws IOException {
+            long size, modified, hash;
+            try (FileChannel text = FileChannel.open(source, StandardOpenOption.READ)) {
+                size = text.size();
+                modified = Files.getLastModifiedTime(source).toMillis();
+                hash = hash(text, size);
+            }
+            out.position(HEADER_SIZE);
+            try (FastScanner scanner = new FastScanner(new FileInputStream(source.toFile()), 1<<16)) {
+                TokenView token = new TokenView();
+                sample(0);
+                while (scanner.nextToken(token)) {
+                    if (!add(token)) {
+                        type = NONE;
+                        tokens = 0;
+                        break;
+                    }
+                    // the text position before every 2^SAMPLE_SHIFT-th token, one after the last token is not written
+                    if ((++tokens & (1L << SAMPLE_SHIFT) - 1) == 0) sample(scanner.position());
+                }
+            }
+            flush();
+            if (type == NONE) {
+                out.truncate(HEADER_SIZE);
+            } else {
+                long count = samples(tokens);
+                ByteBuffer offsets = ByteBuffer.allocate((int) Math.min(count * 8, 1<<16)).order(ByteOrder.LITTLE_ENDIAN);
+                for (long i = 0; i < count; i++) {
+                    if (!offsets.hasRemaining()) writeAll(offsets);
+                    offsets.putLong(samples[(int) i]);
+                }
+                writeAll(offsets);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC).putLong(size).putLong(modified).putLong(hash)
+                    .putInt(type).putInt(SAMPLE_SHIFT).putLong(tokens).clear();
+            while (header.hasRemaining()) out.write(header, header.position());
+            return type != NONE;
+        }
+
+        private void sample(long position) {
+            int i = (int) (tokens >>> SAMPLE_SHIFT);
+            if (i == samples.length) samples = Arrays.copyOf(samples, i * 2);
+            samples[i] = position;
+        }
+
+        /* stores the value of the token, returns false if it is not a number */
+        private boolean add(TokenView token) throws IOException {
+            byte[] b = token.array();
+            int off = token.offset(), len = token.length();
+            if (!values.hasRemaining()) flush();
+            if (type == LONGS && parseInteger(b, off, len)) {
+                values.putLong(integer);
+                return true;
+            }
+            double value;
+            try {
+                value = DoubleParser.parseDouble(b, off, len, true);
+            } catch (InputMismatchException e) {
+                return false;
+            }
+            if (type == LONGS) toDoubles();
+            values.putLong(Double.doubleToRawLongBits(value));
+            return true;
+        }
+
+        /* turns the integers stored so far into doubles once a decimal token is read */
+        private void toDoubles() throws IOException {
+            for (int i = 0; i < values.position(); i += 8) values.putLong(i, Double.doubleToRawLongBits(values.getLong(i)));
+            long written = out.position() - HEADER_SIZE;
+            for (long first = 0; first < written; first += 1L << SEGMENT_SHIFT + 3) {
+                long length = Math.min(written - first, 1L << SEGMENT_SHIFT + 3);
+                MappedByteBuffer map = out.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + first, length);
+                map.order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < length; i += 8) map.putLong(i, Double.doubleToRawLongBits(map.getLong(i)));
+            }
+            type = DOUBLES;
+        }
+
+        private void flush() throws IOException {
+            values.flip();
+            while (values.hasRemaining()) out.write(values);
+            values.clear();
+        }
+
+        private void writeAll(ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) out.write(buffer);
+            buffer.clear();
+        }
+
+        /* parses the token into integer with the rules of nextLongStrict(), returns false if it is none */
+        private boolean parseInteger(byte[] b, int off, int len) {
+            int i = off, end = off + len;
+            boolean negative = i < end && b[i] == '-';
+            if (negative) i++;
+            if (i == end) return false;
+            long max = negative ? Long.MIN_VALUE : Long.MAX_VALUE, value = 0;
+            for (; i < end; i++) {
+                int d = b[i] - '0';
+                if (d < 0 || d > 9) return false;
+                if (value >= SAFE_MAGNITUDE && Long.compareUnsigned(value, Long.divideUnsigned(max - d, 10)) > 0) return false;
+                value = value * 10 + d;
+            }
+            // -0 is stored as a double, so nextDouble() returns -0.0 like parsing the text
+            if (negative && value == 0) return false;
+            integer = negative ? -value : value;
+            return true;
+        }
+    }
+}
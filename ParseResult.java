@@ -0,0 +1,175 @@
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The outcome of a <tt>tryNext*()</tt> method of {@link FastScanner}, reused for
+ * every call, which parses a value without throwing for malformed input.<br>
+ * A token which is not a valid number of the type is consumed as a whole, so the
+ * next call reads the next token, and the result holds the rejected token and its
+ * position. Validating dirty input this way costs no more than validating clean
+ * input, where the Strict methods spend most of their time creating and unwinding
+ * an exception per malformed token.
+ *
+ * <pre>{@code
+ *  ParseResult result = new ParseResult();
+ *  while (scanner.tryNextLong(result) != ParseResult.Status.END_OF_INPUT) {
+ *      if (result.isOk()) sum += result.longValue();
+ *      else log.warn("Skipped " + result);
+ *  }
+ * }</pre>
+ */
+public final class ParseResult {
+
+    /**
+     * The status of a parse.
+     */
+    public enum Status {
+        /** the token is a valid number of the type */
+        OK,
+        /** the token is not a number of the type */
+        INVALID,
+        /** the token is an integer which does not fit the type */
+        OUT_OF_RANGE,
+        /** no token is left */
+        END_OF_INPUT
+    }
+
+    /**
+     * Receives the tokens rejected by the <tt>tryNext*()</tt> methods of a scanner,
+     * see {@link FastScanner#useRejectSink(RejectSink)}.
+     */
+    public interface RejectSink {
+        /**
+         * Receives a rejected token, called before the <tt>tryNext*()</tt> method returns.
+         *
+         * @param rejected the result of the rejected token, valid until the next call on the scanner
+         * @throws IOException if i/o error occurs
+         */
+        void reject(ParseResult rejected) throws IOException;
+    }
+
+    private Status status = Status.END_OF_INPUT;
+    private long longValue;
+    private double doubleValue;
+    private long offset, line = -1, column = -1;
+    private final TokenView token = new TokenView();
+    private Charset charset = StandardCharsets.UTF_8;
+
+    /* starts a parse of the token at the offset */
+    void start(long offset) {
+        this.offset = offset;
+        line = column = -1;
+        token.clearSpill();
+    }
+
+    Status ok(long value) {
+        longValue = value;
+        doubleValue = value;
+        return status = Status.OK;
+    }
+
+    Status ok(double value) {
+        doubleValue = value;
+        longValue = (long) value;
+        return status = Status.OK;
+    }
+
+    Status end(long offset) {
+        start(offset);
+        longValue = 0;
+        doubleValue = 0;
+        return status = Status.END_OF_INPUT;
+    }
+
+    /* rejects the token of the charset, the line and column are -1 if unknown */
+    Status reject(Status status, long line, long column, TokenView rejected, Charset charset) {
+        this.line = line;
+        this.column = column;
+        this.charset = charset;
+        token.append(rejected.array(), rejected.offset(), rejected.length());
+        longValue = 0;
+        doubleValue = 0;
+        return this.status = status;
+    }
+
+    /**
+     * @return the status of the last parse
+     */
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * @return <code>true</code> if the last parse read a valid value
+     */
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+
+    /**
+     * @return the value read by <tt>tryNextInt()</tt>, 0 if the parse failed
+     */
+    public int intValue() {
+        return (int) longValue;
+    }
+
+    /**
+     * @return the value read by <tt>tryNextInt()</tt> or <tt>tryNextLong()</tt>, 0 if the parse failed
+     */
+    public long longValue() {
+        return longValue;
+    }
+
+    /**
+     * @return the value read by any <tt>tryNext*()</tt> method, 0 if the parse failed
+     */
+    public double doubleValue() {
+        return doubleValue;
+    }
+
+    /**
+     * Returns the byte offset of the token from the start of the input of the
+     * scanner, or the offset of the end of input.
+     *
+     * @return the offset of the token
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * Returns the line of a rejected token, counting from 1 with lines ending with
+     * <code>'\n'</code>. The lines are known if the scanner has not read past its
+     * first buffer before its first <tt>tryNext*()</tt> call, or was reset or moved by
+     * <tt>seekLine()</tt> since, and stay unknown after a skip or a seek to a token.
+     *
+     * @return the line of the rejected token, or -1 if the parse succeeded or the line is unknown
+     */
+    public long line() {
+        return line;
+    }
+
+    /**
+     * @return the byte column of a rejected token counting from 1, or -1 if the
+     *         parse succeeded or the line is unknown
+     */
+    public long column() {
+        return column;
+    }
+
+    /**
+     * @return the rejected token decoded with the charset of the scanner, empty if the parse succeeded
+     */
+    public String token() {
+        return token.toString(charset);
+    }
+
+    @Override
+    public String toString() {
+        if (status == Status.OK) return "OK " + (longValue == doubleValue ? Long.toString(longValue) : Double.toString(doubleValue));
+        if (status == Status.END_OF_INPUT) return "END_OF_INPUT at offset " + offset;
+        return status + " '" + token() + "' at " + (line < 0 ? "" : "line " + line + ", column " + column + ", ")
+                + "offset " + offset;
+    }
+}
@@ -0,0 +1,136 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Double buffered reader which fills the next buffers of an InputStream on a
+ * background thread while the scanner parses the current one.<br>
+ * The producer thread and the scanner exchange whole arrays through a ring of
+ * two slots. The handoff is lock-free: the slots are published through the
+ * volatile <code>filled</code> and <code>taken</code> counters and a side which
+ * finds the ring full or empty parks until the other side unparks it.
+ */
+final class Prefetcher implements Runnable {
+
+    private static final int SLOTS = 2;
+    /* number of checks before the waiting side parks its thread */
+    private static final int SPINS = 64;
+
+    private final InputStream in;
+    private final byte[][] slots = new byte[SLOTS][];
+    private final int[] lengths = new int[SLOTS];
+    private final Thread producer;
+
+    private volatile long filled, taken;
+    private volatile boolean closed, waitingProducer;
+    private volatile IOException failure;
+    private volatile Thread waitingConsumer;
+
+    /* written only by the consumer */
+    private int length;
+    private long waitCount, waitNanos;
+
+    Prefetcher(InputStream in, int bufferSize, ThreadFactory threadFactory) {
+        this.in = in;
+        for (int i = 0; i < SLOTS; i++) slots[i] = new byte[bufferSize];
+        producer = threadFactory.newThread(this);
+        producer.start();
+    }
+
+    @Override
+    public void run() {
+        long next = 0;
+        while (true) {
+            if (next - taken == SLOTS) {
+                waitingProducer = true;
+                while (next - taken == SLOTS && !closed) LockSupport.park(this);
+                waitingProducer = false;
+            }
+            if (closed) return;
+            int slot = (int) (next % SLOTS), n;
+            try {
+                do n = in.read(slots[slot], 0, slots[slot].length);
+                while (n == 0);
+            } catch (IOException e) {
+                failure = e;
+                n = -1;
+            }
+            lengths[slot] = n;
+            filled = ++next;
+            Thread consumer = waitingConsumer;
+            if (consumer != null) LockSupport.unpark(consumer);
+            if (n == -1) return;
+        }
+    }
+
+    /**
+     * Hands back a consumed buffer and returns the next filled one.
+     * The number of valid bytes in it is returned by {@link #length()}.
+     *
+     * @param consumed buffer which is no longer used by the scanner
+     * @return the buffer holding the next bytes of the stream
+     * @throws IOException if the background read failed, on every call after the failure
+     */
+    byte[] exchange(byte[] consumed) throws IOException {
+        if (length == -1) {
+            if (failure != null) throw failure;
+            return consumed;
+        }
+        long next = taken;
+        if (filled == next && !await(next)) {
+            length = -1;
+            return consumed;
+        }
+        int slot = (int) (next % SLOTS);
+        if ((length = lengths[slot]) == -1) {
+            if (failure != null) throw failure;
+            return consumed;
+        }
+        byte[] buffer = slots[slot];
+        slots[slot] = consumed;
+        taken = next + 1;
+        if (waitingProducer) LockSupport.unpark(producer);
+        return buffer;
+    }
+
+    /**
+     * Returns the number of bytes read into the last buffer returned by
+     * {@link #exchange(byte[])}, or -1 at the end of stream.
+     */
+    int length() {
+        return length;
+    }
+
+    /* waits for the producer to fill the slot, false if closed meanwhile */
+    private boolean await(long next) {
+        long start = System.nanoTime();
+        waitCount++;
+        for (int i = 0; i < SPINS && filled == next; i++) Thread.yield();
+        waitingConsumer = Thread.currentThread();
+        while (filled == next && !closed) LockSupport.park(this);
+        waitingConsumer = null;
+        waitNanos += System.nanoTime() - start;
+        return filled != next;
+    }
+
+    /**
+     * Returns the number of refills for which the buffer was not ready and
+     * the scanner had to wait for I/O.
+     */
+    long waitCount() {
+        return waitCount;
+    }
+
+    /**
+     * Returns the total time in nanoseconds the scanner waited for I/O.
+     */
+    long waitNanos() {
+        return waitNanos;
+    }
+
+    void close() {
+        closed = true;
+        LockSupport.unpark(producer);
+    }
+}
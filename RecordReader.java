@@ -0,0 +1,247 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Reads records of whitespace separated fields of a fixed schema, such as lines
+ * of <code>long int double token</code>, from a {@link FastScanner} into a reusable
+ * {@link Record} or the columns of a {@link ColumnBatch}.<br>
+ * The schema is compiled once into a code per field, and a record is parsed by a
+ * single loop over the fields inside the scanner, without the per call dispatch
+ * of the <tt>next*()</tt> methods. The Fast methods read the fields without
+ * validating them, like <tt>nextLongFast()</tt>. The Strict methods validate the
+ * fields like <tt>nextLongStrict()</tt> and require every record to fill a single
+ * line with exactly one field per column. Blank lines between records are skipped.
+ *
+ * <pre>{@code
+ *  RecordReader reader = new RecordReader(new FastScanner(path), Type.LONG, Type.INT, Type.DOUBLE, Type.TOKEN);
+ *  RecordReader.Record record = reader.newRecord();
+ *  while (reader.readStrict(record)) {
+ *      long id = record.getLong(0);
+ *      double price = record.getDouble(2);
+ *      ...
+ *  }
+ * }</pre>
+ */
+public final class RecordReader implements Closeable {
+
+    /* the codes of the field types, see FastScanner.readRecord() */
+    static final int INT = 0, LONG = 1, DOUBLE = 2, TOKEN = 3, SKIP = 4;
+
+    private final FastScanner scanner;
+    private final ColumnBatch.Type[] types;
+    private final int[] codes;
+    private long records;
+
+    /**
+     * A record of the schema of a reader, reused for every record read into it.
+     */
+    public static final class Record {
+
+        private final ColumnBatch row;
+
+        private Record(ColumnBatch.Type[] types) {
+            row = new ColumnBatch(1, types);
+        }
+
+        /**
+         * @return the number of fields
+         */
+        public int fieldCount() {
+            return row.columnCount();
+        }
+
+        /**
+         * @param field index of an {@link ColumnBatch.Type#INT INT} field
+         * @return the value of the field
+         * @throws IllegalArgumentException if the field is not an INT field
+         */
+        public int getInt(int field) {
+            return row.ints(field)[0];
+        }
+
+        /**
+         * @param field index of a {@link ColumnBatch.Type#LONG LONG} field
+         * @return the value of the field
+         * @throws IllegalArgumentException if the field is not a LONG field
+         */
+        public long getLong(int field) {
+            return row.longs(field)[0];
+        }
+
+        /**
+         * @param field index of a {@link ColumnBatch.Type#DOUBLE DOUBLE} field
+         * @return the value of the field
+         * @throws IllegalArgumentException if the field is not a DOUBLE field
+         */
+        public double getDouble(int field) {
+            return row.doubles(field)[0];
+        }
+
+        /**
+         * Points the view to a {@link ColumnBatch.Type#TOKEN TOKEN} field without
+         * copying it. The view is valid until the record is read again.
+         *
+         * @param field index of a TOKEN field
+         * @param view  the view to point to the field
+         * @return the view
+         * @throws IllegalArgumentException if the field is not a TOKEN field
+         */
+        public TokenView getToken(int field, @NotNull TokenView view) {
+            return row.token(field, 0, view);
+        }
+
+        /**
+         * @param field index of a {@link ColumnBatch.Type#TOKEN TOKEN} field
+         * @return the field decoded with the charset of the scanner
+         * @throws IllegalArgumentException if the field is not a TOKEN field
+         */
+        public String getString(int field) {
+            return row.string(field, 0);
+        }
+    }
+
+    /**
+     * Constructs a reader of records with one field per type.
+     *
+     * @param scanner scanner to read the records from
+     * @param types   type of every field of the records, {@link ColumnBatch.Type#SKIP SKIP}
+     *                for fields which are read over
+     */
+    public RecordReader(@NotNull FastScanner scanner, @NotNull ColumnBatch.Type... types) {
+        this.scanner = Objects.requireNonNull(scanner, "Scanner cannot be null");
+        if (types.length == 0) throw new IllegalArgumentException("Schema has no fields");
+        this.types = types.clone();
+        codes = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            switch (Objects.requireNonNull(types[i], "Type cannot be null")) {
+                case INT: codes[i] = INT; break;
+                case LONG: codes[i] = LONG; break;
+                case DOUBLE: codes[i] = DOUBLE; break;
+                case TOKEN: codes[i] = TOKEN; break;
+                default: codes[i] = SKIP;
+            }
+        }
+    }
+
+    /**
+     * @return a new record of the schema of the reader
+     */
+    public Record newRecord() {
+        return new Record(types);
+    }
+
+    /**
+     * Returns the number of records read so far, which is the number of the
+     * last record read counting from 1.
+     *
+     * @return the number of records read
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Reads the next record into the record without validating the fields.
+     *
+     * @param record record of this reader to read into
+     * @return <code>false</code> if the end of input is reached
+     * @throws NoSuchElementException if the input ends inside a record
+     * @throws IOException if i/o error occurs
+     */
+    public boolean readFast(@NotNull Record record) throws IOException {
+        return read(record, false);
+    }
+
+    /**
+     * Reads and validates the next record into the record.
+     *
+     * @param record record of this reader to read into
+     * @return <code>false</code> if the end of input is reached
+     * @throws InputMismatchException
+     *         if a field is not a valid number of its type, or the record does not
+     *         fill a single line with one field per column
+     * @throws IOException if i/o error occurs
+     */
+    public boolean readStrict(@NotNull Record record) throws IOException {
+        return read(record, true);
+    }
+
+    /**
+     * Reads records into the batch without validating the fields until the batch
+     * is full or the end of input is reached, replacing the records of the previous call.
+     *
+     * @param batch batch with the schema of this reader to read into
+     * @return the number of records read, 0 at the end of input
+     * @throws IllegalArgumentException if the batch has another schema
+     * @throws NoSuchElementException if the input ends inside a record
+     * @throws IOException if i/o error occurs
+     */
+    public int readBatchFast(@NotNull ColumnBatch batch) throws IOException {
+        return readBatch(batch, false);
+    }
+
+    /**
+     * Reads and validates records into the batch until the batch is full or the end
+     * of input is reached, replacing the records of the previous call.
+     *
+     * @param batch batch with the schema of this reader to read into
+     * @return the number of records read, 0 at the end of input
+     * @throws IllegalArgumentException if the batch has another schema
+     * @throws InputMismatchException
+     *         if a field is not a valid number of its type, or a record does not
+     *         fill a single line with one field per column
+     * @throws IOException if i/o error occurs
+     */
+    public int readBatchStrict(@NotNull ColumnBatch batch) throws IOException {
+        return readBatch(batch, true);
+    }
+
+    /**
+     * Closes the scanner.
+     *
+     * @throws IOException if i/o error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        scanner.close();
+    }
+
+    private boolean read(Record record, boolean strict) throws IOException {
+        ColumnBatch row = record.row;
+        if (!hasSchema(row)) throw new IllegalArgumentException("Record of another schema");
+        row.clear();
+        row.charset(scanner.charset());
+        if (!readRecord(row, 0, strict)) return false;
+        row.setSize(1);
+        return true;
+    }
+
+    private int readBatch(ColumnBatch batch, boolean strict) throws IOException {
+        if (!hasSchema(batch)) throw new IllegalArgumentException("Batch of another schema");
+        batch.clear();
+        batch.charset(scanner.charset());
+        int rows = 0;
+        while (rows < batch.capacity() && readRecord(batch, rows, strict)) batch.setSize(++rows);
+        return rows;
+    }
+
+    private boolean readRecord(ColumnBatch batch, int row, boolean strict) throws IOException {
+        try {
+            if (!scanner.readRecord(codes, batch, row, strict)) return false;
+        } catch (InputMismatchException e) {
+            String message = e.getMessage() == null ? "Invalid field" : e.getMessage();
+            throw new InputMismatchException(message + " in record " + (records + 1));
+        }
+        records++;
+        return true;
+    }
+
+    private boolean hasSchema(ColumnBatch batch) {
+        if (batch.columnCount() != types.length) return false;
+        for (int c = 0; c < types.length; c++) if (batch.type(c) != types[c]) return false;
+        return true;
+    }
+}
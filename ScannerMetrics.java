@@ -0,0 +1,181 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in counters of one or more {@link FastScanner} objects, set by
+ * {@link FastScanner#useMetrics(ScannerMetrics)} or {@link FastScanner.Builder#metrics(ScannerMetrics)}.<br>
+ * The metrics tell whether a scanner is bound by I/O, the time blocked in reading
+ * the source, or by parsing, the rest of the elapsed time. They can be shared by
+ * any number of scanners on any threads, published as a JMX MBean and are also
+ * recorded as JDK Flight Recorder events, see {@link FlightRecorderEvents}.<br>
+ * Scanners without metrics only test for them once per buffer refill and token.
+ * Token counts of a scanner are added to its metrics at every refill and on
+ * <tt>close()</tt>, so they may lag behind by one buffer of input.
+ *
+ * <pre>{@code
+ *  ScannerMetrics metrics = new ScannerMetrics();
+ *  metrics.registerMBean("import");
+ *  FastScanner scanner = new FastScanner(path).useMetrics(metrics);
+ * }</pre>
+ */
+public final class ScannerMetrics implements ScannerMetricsMXBean {
+
+    /**
+     * The type of a token counted by the metrics.
+     */
+    public enum Token {
+        /** read by <tt>nextInt*()</tt> or <tt>readInts*()</tt> */
+        INT,
+        /** read by <tt>nextLong*()</tt> or <tt>readLongs*()</tt> */
+        LONG,
+        /** read by <tt>nextShort*()</tt> or <tt>readShorts*()</tt> */
+        SHORT,
+        /** read by <tt>nextFloat*()</tt> */
+        FLOAT,
+        /** read by <tt>nextDouble*()</tt> or <tt>readDoubles*()</tt> */
+        DOUBLE,
+        /** read by <tt>nextBigInteger*()</tt> */
+        BIG_INTEGER,
+        /** read by <tt>nextBigDecimal*()</tt> */
+        BIG_DECIMAL,
+        /** read by <tt>nextNumberInText()</tt> */
+        NUMBER,
+        /** read by <tt>next()</tt> or <tt>nextToken()</tt> */
+        WORD,
+        /** read by <tt>nextLine()</tt> */
+        LINE
+    }
+
+    private static final Token[] TOKENS = Token.values();
+
+    private final LongAdder bytesRead = new LongAdder(), refills = new LongAdder();
+    private final LongAdder readNanos = new LongAdder(), mismatches = new LongAdder();
+    private final LongAdder[] tokens = new LongAdder[TOKENS.length];
+    private volatile long startNanos = System.nanoTime();
+    private ObjectName objectName;
+
+    /**
+     * Constructs metrics with all counters at zero.
+     */
+    public ScannerMetrics() {
+        for (int i = 0; i < tokens.length; i++) tokens[i] = new LongAdder();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getRefillCount() {
+        return refills.sum();
+    }
+
+    @Override
+    public long getReadNanos() {
+        return readNanos.sum();
+    }
+
+    @Override
+    public long getMismatchCount() {
+        return mismatches.sum();
+    }
+
+    /**
+     * @param token type of the tokens
+     * @return the number of tokens of the type read
+     */
+    public long getTokenCount(@NotNull Token token) {
+        return tokens[token.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, Long> getTokenCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Token token : TOKENS) counts.put(token.name(), tokens[token.ordinal()].sum());
+        return counts;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        long elapsed = getElapsedNanos();
+        return elapsed <= 0 ? 0 : getBytesRead() * 1e9 / elapsed;
+    }
+
+    @Override
+    public void reset() {
+        bytesRead.reset();
+        refills.reset();
+        readNanos.reset();
+        mismatches.reset();
+        for (LongAdder count : tokens) count.reset();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server as
+     * <code>fastscanner:type=ScannerMetrics,name=</code><i>name</i>.
+     *
+     * @param name name of the metrics, such as the name of the job
+     * @return the name of the MBean
+     * @throws JMException if the name is invalid or already registered
+     * @throws IllegalStateException if these metrics are already registered
+     */
+    public synchronized ObjectName registerMBean(@NotNull String name) throws JMException {
+        if (objectName != null) throw new IllegalStateException("Metrics already registered as " + objectName);
+        ObjectName objectName = new ObjectName("fastscanner:type=ScannerMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return this.objectName = objectName;
+    }
+
+    /**
+     * Removes the MBean registered by <tt>registerMBean()</tt>, if any.
+     *
+     * @throws JMException if the MBean cannot be unregistered
+     */
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName == null) return;
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        objectName = null;
+    }
+
+    /* counts a refill which read the bytes, and adds the tokens counted by the scanner since the last refill */
+    void refill(int bytes, long nanos, long[] tokenCounts) {
+        if (bytes > 0) {
+            bytesRead.add(bytes);
+            refills.increment();
+        }
+        readNanos.add(nanos);
+        addTokens(tokenCounts);
+    }
+
+    /* adds the token counts of a scanner and clears them */
+    void addTokens(long[] tokenCounts) {
+        for (int i = 0; i < tokenCounts.length; i++) {
+            if (tokenCounts[i] == 0) continue;
+            tokens[i].add(tokenCounts[i]);
+            tokenCounts[i] = 0;
+        }
+    }
+
+    void mismatch(Token token) {
+        mismatches.increment();
+        FlightRecorderEvents.mismatch(token.name());
+    }
+
+    @Override
+    public String toString() {
+        return "ScannerMetrics{bytesRead=" + getBytesRead() + ", refills=" + getRefillCount()
+                + ", readNanos=" + getReadNanos() + ", mismatches=" + getMismatchCount()
+                + ", tokens=" + getTokenCounts() + ", bytesPerSecond=" + (long) getBytesPerSecond() + '}';
+    }
+}
@@ -0,0 +1,32 @@
+import java.util.Map;
+
+/**
+ * Management interface of {@link ScannerMetrics}, registered by
+ * {@link ScannerMetrics#registerMBean(String)}.
+ */
+public interface ScannerMetricsMXBean {
+
+    /** @return the number of bytes read from the sources */
+    long getBytesRead();
+
+    /** @return the number of buffer refills which read bytes */
+    long getRefillCount();
+
+    /** @return the time blocked in reading the sources, in nanoseconds */
+    long getReadNanos();
+
+    /** @return the number of tokens rejected by the Strict methods */
+    long getMismatchCount();
+
+    /** @return the number of tokens read, by token type */
+    Map<String, Long> getTokenCounts();
+
+    /** @return the time since the metrics were created or reset, in nanoseconds */
+    long getElapsedNanos();
+
+    /** @return the bytes read per second since the metrics were created or reset */
+    double getBytesPerSecond();
+
+    /** Resets all counters to zero. */
+    void reset();
+}
@@ -0,0 +1,82 @@
+/**
+ * SIMD within a register helpers which process 8 bytes of input at once.<br>
+ * The words hold the bytes in little-endian order, so the first byte of the
+ * input is the lowest byte of the word.
+ */
+final class Swar {
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x0101010101010101L;
+
+    /* powers of ten for the number of digits in a word */
+    static final long[] POW10 = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000};
+
+    private Swar() {
+    }
+
+    /**
+     * Returns the number of ASCII digits at the start of the word, 8 if all
+     * the bytes are digits.
+     */
+    static int leadingDigits(long word) {
+        long low = word & 0x7F7F7F7F7F7F7F7FL;
+        long atLeastZero = low + 0x5050505050505050L;
+        long aboveNine = low + 0x4646464646464646L;
+        long digits = atLeastZero & ~aboveNine & ~word & HIGH_BITS;
+        return Long.numberOfTrailingZeros(~digits & HIGH_BITS) >>> 3;
+    }
+
+    /**
+     * Returns the value of the first <code>len</code> bytes of the word,
+     * which must be ASCII digits, in a few multiplications.
+     *
+     * @param len number of digits, from 1 to 8
+     */
+    static long digits(long word, int len) {
+        word = (word << ((8 - len) << 3)) & 0x0F0F0F0F0F0F0F0FL;
+        word = (word * 2561) >>> 8 & 0x00FF00FF00FF00FFL;
+        word = (word * 6553601) >>> 16 & 0x0000FFFF0000FFFFL;
+        return (word * 42949672960001L) >>> 32;
+    }
+
+    /**
+     * Returns the byte repeated in all 8 bytes of a word, to search for it with
+     * {@link #equalBytes(long, long)}.
+     */
+    static long broadcast(int b) {
+        return (b & 0xFFL) * LOW_BITS;
+    }
+
+    /**
+     * Returns a word with the high bit set in the bytes of the word which are equal
+     * to the byte of the pattern. Only the lowest set bit is exact, so the index of
+     * the first equal byte is <code>Long.numberOfTrailingZeros(mask) >>> 3</code>.
+     *
+     * @param pattern the byte to search for, see {@link #broadcast(int)}
+     */
+    static long equalBytes(long word, long pattern) {
+        long x = word ^ pattern;
+        return (x - LOW_BITS) & ~x & HIGH_BITS;
+    }
+
+    /**
+     * Returns a word with the high bit set in exactly the bytes of the word which
+     * are equal to the byte of the pattern, so they can be counted with
+     * <code>Long.bitCount(mask)</code>. Slower than {@link #equalBytes(long, long)}.
+     *
+     * @param pattern the byte to search for, see {@link #broadcast(int)}
+     */
+    static long exactEqualBytes(long word, long pattern) {
+        long x = word ^ pattern;
+        return ~((x & ~HIGH_BITS) + ~HIGH_BITS | x) & HIGH_BITS;
+    }
+
+    /**
+     * Returns a word with the high bit set in the bytes of the word which are
+     * separators, that is unsigned values up to <code>' '</code>. Only the lowest
+     * set bit is exact, like in {@link #equalBytes(long, long)}.
+     */
+    static long separatorBytes(long word) {
+        return (word - 0x2121212121212121L) & ~word & HIGH_BITS;
+    }
+}
@@ -0,0 +1,78 @@
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A bounded cache which returns the same String instance for repeated tokens,
+ * see {@link FastScanner#next(TokenInterner)}.<br>
+ * The cache is a two way set associative table of fixed capacity. A token is looked
+ * up by comparing its bytes, so a String is created only when the token is not
+ * cached, and on a miss the least recently inserted entry of the set is evicted.
+ * The memory used by the cache thus stays bounded for input with an unbounded
+ * number of distinct tokens.<br>
+ * A <code>TokenInterner</code> is not thread safe.
+ */
+public final class TokenInterner {
+
+    private final String[] strings;
+    private final byte[][] bytes;
+    private final int[] hashes;
+    private final Charset[] charsets;
+    private final int mask;
+
+    /**
+     * Constructs an interner caching up to <code>capacity</code> tokens.
+     *
+     * @param capacity maximum number of cached tokens, rounded up to a power of two
+     */
+    public TokenInterner(int capacity) {
+        if (capacity < 2 || capacity > 1<<30) throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        strings = new String[size];
+        bytes = new byte[size][];
+        hashes = new int[size];
+        charsets = new Charset[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the cached String for the token decoded as UTF-8, creating
+     * and caching it if the token is not present.
+     *
+     * @param token token to intern
+     * @return a String equal to the decoded token
+     */
+    public String intern(TokenView token) {
+        return intern(token, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the cached String for the token decoded with the charset, creating
+     * and caching it if the token is not present. Tokens are cached per charset,
+     * so an interner can be shared by scanners of different charsets.
+     *
+     * @param token token to intern
+     * @param charset charset to decode the token with
+     * @return a String equal to the decoded token
+     */
+    public String intern(TokenView token, Charset charset) {
+        int h = token.hashCode();
+        int i = (h ^ (h >>> 16)) & mask & ~1;
+        if (matches(i, h, token, charset)) return strings[i];
+        if (matches(i + 1, h, token, charset)) return strings[i + 1];
+
+        strings[i + 1] = strings[i];
+        bytes[i + 1] = bytes[i];
+        hashes[i + 1] = hashes[i];
+        charsets[i + 1] = charsets[i];
+        String s = token.toString(charset);
+        strings[i] = s;
+        bytes[i] = token.toByteArray();
+        hashes[i] = h;
+        charsets[i] = charset;
+        return s;
+    }
+
+    private boolean matches(int i, int h, TokenView token, Charset charset) {
+        return hashes[i] == h && charsets[i] == charset && token.contentEquals(bytes[i]);
+    }
+}
@@ -0,0 +1,371 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Hands the input of a single {@link FastScanner} to several worker threads, for
+ * processing which is heavier than parsing.<br>
+ * The thread calling <tt>run()</tt> reads the input into batches, such as a
+ * <code>long[]</code> filled by <tt>readLongsFast()</tt> or a {@link ColumnBatch}
+ * filled by a {@link RecordReader}, and publishes them to the workers through a ring
+ * of preallocated batches. A worker claims a whole batch at once with a single atomic
+ * increment and hands it back once it is processed, so the ring needs no locks and
+ * the batches are reused without allocation. The scanner is only used by the reading
+ * thread.<br>
+ * Batches are delivered to a handler in any order, or processed by a function in any
+ * order and their results delivered to a consumer in input order. Threads waiting for
+ * a batch or a free slot wait by a {@link WaitStrategy}.
+ *
+ * <pre>{@code
+ *  TokenPipeline<long[]> pipeline = new TokenPipeline<>(16, () -> new long[4096]).workers(4);
+ *  pipeline.run(scanner, (s, values) -> s.readLongsFast(values, 0, values.length),
+ *          (values, size) -> index(values, size));
+ * }</pre>
+ *
+ * @param <B> type of the batches
+ */
+public final class TokenPipeline<B> {
+
+    /**
+     * How a thread waits for a batch to be published or a slot of the ring to be
+     * freed.
+     */
+    public enum WaitStrategy {
+        /** spins, for the lowest latency on dedicated cores */
+        BUSY_SPIN,
+        /** spins and then yields the processor to other threads */
+        YIELDING,
+        /** spins, yields and then sleeps for increasing periods of up to a millisecond */
+        SLEEPING;
+
+        private static final int SPINS = 100, YIELDS = 100;
+
+        /* waits once, the round counts the waits for the same condition */
+        void idle(int round) {
+            if (this == BUSY_SPIN || round < SPINS) return;
+            if (this == YIELDING || round < SPINS + YIELDS) Thread.yield();
+            else LockSupport.parkNanos(Math.min(1000L << Math.min(round - SPINS - YIELDS, 10), 1000000L));
+        }
+    }
+
+    /**
+     * Reads the next batch from the scanner.
+     *
+     * @param <B> type of the batches
+     */
+    public interface BatchReader<B> {
+        /**
+         * Reads the next batch, replacing its previous content.
+         *
+         * @param scanner scanner to read from
+         * @param batch   the batch to fill
+         * @return the number of values or records read, 0 at the end of input
+         * @throws IOException if i/o error occurs
+         */
+        int read(FastScanner scanner, B batch) throws IOException;
+    }
+
+    /**
+     * Processes a batch on a worker thread.
+     *
+     * @param <B> type of the batches
+     */
+    public interface BatchHandler<B> {
+        /**
+         * Processes a batch. Batches are processed concurrently.
+         *
+         * @param batch the batch, valid until the method returns
+         * @param size  the number of values or records read into the batch
+         * @throws IOException if i/o error occurs
+         */
+        void handle(B batch, int size) throws IOException;
+    }
+
+    /**
+     * Computes the result of a batch on a worker thread.
+     *
+     * @param <B> type of the batches
+     * @param <R> type of the results
+     */
+    public interface BatchFunction<B, R> {
+        /**
+         * Computes the result of a batch. Batches are processed concurrently.
+         *
+         * @param batch the batch, valid until the method returns
+         * @param size  the number of values or records read into the batch
+         * @return the result of the batch
+         * @throws IOException if i/o error occurs
+         */
+        R apply(B batch, int size) throws IOException;
+    }
+
+    /**
+     * Consumes the results of the batches in input order.
+     *
+     * @param <R> type of the results
+     */
+    public interface ResultConsumer<R> {
+        /**
+         * Consumes the result of a batch, called by one worker at a time in the order of the batches.
+         *
+         * @param result the result of the batch
+         * @throws IOException if i/o error occurs
+         */
+        void accept(R result) throws IOException;
+    }
+
+
+    /* slots of the sequence arrays are a cache line apart, so the threads of neighbouring slots do not contend */
+    private static final int PAD = 8;
+
+    private static final ThreadFactory THREADS = new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "fastscanner-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private final Object[] batches;
+    private final int mask;
+    private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private WaitStrategy waitStrategy = WaitStrategy.SLEEPING;
+    private ThreadFactory threadFactory = THREADS;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Constructs a pipeline over a ring of batches, which are allocated once and reused by every run.
+     *
+     * @param ringSize number of batches of the ring, a power of two, which bounds the
+     *                 number of batches read ahead of the workers
+     * @param batches  supplier of the batches, called once per slot of the ring
+     */
+    public TokenPipeline(int ringSize, @NotNull Supplier<? extends B> batches) {
+        if (ringSize <= 0 || (ringSize & ringSize - 1) != 0)
+            throw new IllegalArgumentException("Ring size is not a power of two: " + ringSize);
+        Objects.requireNonNull(batches, "Supplier cannot be null");
+        this.batches = new Object[ringSize];
+        for (int i = 0; i < ringSize; i++) this.batches[i] = Objects.requireNonNull(batches.get(), "Batch cannot be null");
+        mask = ringSize - 1;
+    }
+
+    /**
+     * Sets the number of worker threads of a run, by default one less than the number of processors.
+     *
+     * @param workers the number of worker threads
+     * @return this pipeline
+     */
+    public TokenPipeline<B> workers(int workers) {
+        if (workers <= 0) throw new IllegalArgumentException("Invalid number of workers: " + workers);
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * Sets how the threads wait for batches and free slots, by default {@link WaitStrategy#SLEEPING}.
+     *
+     * @param waitStrategy the wait strategy
+     * @return this pipeline
+     */
+    public TokenPipeline<B> waitStrategy(@NotNull WaitStrategy waitStrategy) {
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "Wait strategy cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the factory of the worker threads, which should be platform threads as the workers spin.
+     *
+     * @param threadFactory factory of the worker threads
+     * @return this pipeline
+     */
+    public TokenPipeline<B> threadFactory(@NotNull ThreadFactory threadFactory) {
+        this.threadFactory = Objects.requireNonNull(threadFactory, "Thread factory cannot be null");
+        return this;
+    }
+
+    /**
+     * @return the number of batches of the ring
+     */
+    public int ringSize() {
+        return batches.length;
+    }
+
+    /**
+     * Reads the input into batches and hands them to the workers in any order,
+     * until the end of input. The reading is done on the calling thread. Once the
+     * reader or a handler fails no further batch is read or handled, the workers
+     * finish the batches they handle and the failure is thrown.
+     *
+     * @param scanner scanner to read from, used only by the calling thread
+     * @param reader  reads the next batch
+     * @param handler processes the batches on the workers
+     * @return the number of values or records read
+     * @throws IllegalStateException if the pipeline is already running
+     * @throws IOException if i/o error occurs, or the reader or a handler fails
+     */
+    public long run(@NotNull FastScanner scanner, @NotNull BatchReader<? super B> reader,
+                    @NotNull BatchHandler<? super B> handler) throws IOException {
+        Objects.requireNonNull(handler, "Handler cannot be null");
+        return run(scanner, reader, new Run<>((batch, size) -> {
+            handler.handle(batch, size);
+            return null;
+        }, null));
+    }
+
+    /**
+     * Reads the input into batches, computes their results on the workers in any
+     * order and hands the results to the consumer in input order, until the end of
+     * input. The reading is done on the calling thread. A worker whose result is
+     * not the next one in order waits before it takes another batch, so a slow
+     * batch holds back the others by at most one batch per worker. Once the reader,
+     * the function or the consumer fails no further batch is read or processed,
+     * the workers finish the batches they process and the failure is thrown.
+     *
+     * @param scanner  scanner to read from, used only by the calling thread
+     * @param reader   reads the next batch
+     * @param function computes the results of the batches on the workers
+     * @param consumer consumes the results in input order
+     * @param <R>      type of the results
+     * @return the number of values or records read
+     * @throws IllegalStateException if the pipeline is already running
+     * @throws IOException if i/o error occurs, or the reader, the function or the consumer fails
+     */
+    public <R> long run(@NotNull FastScanner scanner, @NotNull BatchReader<? super B> reader,
+                        @NotNull BatchFunction<? super B, ? extends R> function,
+                        @NotNull ResultConsumer<? super R> consumer) throws IOException {
+        Objects.requireNonNull(function, "Function cannot be null");
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        return run(scanner, reader, new Run<R>(function, consumer));
+    }
+
+    @SuppressWarnings("unchecked")
+    private long run(FastScanner scanner, BatchReader<? super B> reader, Run<?> run) throws IOException {
+        Objects.requireNonNull(scanner, "Scanner cannot be null");
+        Objects.requireNonNull(reader, "Reader cannot be null");
+        if (!running.compareAndSet(false, true)) throw new IllegalStateException("Pipeline is already running");
+        List<Thread> threads = new ArrayList<>(workers);
+        long count = 0, sequence = 0;
+        try {
+            for (int i = 0; i < workers; i++) {
+                Thread worker = threadFactory.newThread(run);
+                threads.add(worker);
+                worker.start();
+            }
+            while (true) {
+                int slot = (int) sequence & mask;
+                // the slot is free once the batch read a ring before is released
+                for (int round = 0; run.released.get(slot * PAD) != sequence - batches.length; round++) {
+                    if (run.failure.get() != null) return count;
+                    if (Thread.currentThread().isInterrupted())
+                        throw new InterruptedIOException("Interrupted while waiting for a free batch");
+                    waitStrategy.idle(round);
+                }
+                int size = reader.read(scanner, (B) batches[slot]);
+                if (size <= 0) return count;
+                count += size;
+                run.sizes[slot] = size;
+                run.published.lazySet(slot * PAD, sequence++);
+            }
+        } catch (Throwable e) {
+            run.fail(e);
+            return count;
+        } finally {
+            // the workers take the published batches and stop at the first sequence never published
+            run.end = sequence;
+            try {
+                join(threads);
+            } finally {
+                running.set(false);
+            }
+            Throwable failure = run.failure.get();
+            if (failure instanceof IOException) throw (IOException) failure;
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+            if (failure != null) throw new IOException(failure);
+        }
+    }
+
+    /* the state of a run shared by the reading thread and the workers, each worker processes the next batch */
+    private final class Run<R> implements Runnable {
+
+        private final BatchFunction<? super B, ? extends R> function;
+        /* the consumer of the results in order, or null to drop them */
+        private final ResultConsumer<? super R> consumer;
+        /* per slot the sequence of the batch published into it and the last one released from it */
+        final AtomicLongArray published, released;
+        final int[] sizes;
+        private final AtomicLong claimed = new AtomicLong();
+        /* the sequence of the next result to consume */
+        private volatile long consumed;
+        /* the number of batches read, set at the end of input */
+        volatile long end = Long.MAX_VALUE;
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Run(BatchFunction<? super B, ? extends R> function, ResultConsumer<? super R> consumer) {
+            this.function = function;
+            this.consumer = consumer;
+            published = new AtomicLongArray(batches.length * PAD);
+            released = new AtomicLongArray(batches.length * PAD);
+            sizes = new int[batches.length];
+            for (int slot = 0; slot < batches.length; slot++) {
+                published.set(slot * PAD, -1);
+                released.set(slot * PAD, slot - batches.length);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            try {
+                while (true) {
+                    long sequence = claimed.getAndIncrement();
+                    int slot = (int) sequence & mask;
+                    for (int round = 0; published.get(slot * PAD) != sequence; round++) {
+                        if (sequence >= end || failure.get() != null) return;
+                        waitStrategy.idle(round);
+                    }
+                    R result = function.apply((B) batches[slot], sizes[slot]);
+                    if (consumer != null) {
+                        for (int round = 0; consumed != sequence; round++) {
+                            if (failure.get() != null) return;
+                            waitStrategy.idle(round);
+                        }
+                        consumer.accept(result);
+                        consumed = sequence + 1;
+                    }
+                    released.lazySet(slot * PAD, sequence);
+                }
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+
+        void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static void join(List<Thread> workers) throws InterruptedIOException {
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the workers");
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A primitive {@link Spliterator} over the remaining tokens of a {@link FastScanner}.<br>
+ * For file and memory mapped sources the remaining file is split at token boundaries,
+ * every part being parsed by its own memory mapped scanner, so a parallel stream
+ * spreads the parsing itself across cores. Other sources are split by reading a
+ * batch of values into an array, which only parallelizes the downstream work.
+ */
+abstract class TokenSpliterator {
+
+    static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    /* file regions smaller than this are not split further */
+    private static final long MIN_SPLIT_SIZE = 1<<18;
+    private static final int REGION_BUFFER_SIZE = 1<<16;
+    private static final int BATCH_UNIT = 1<<10, MAX_BATCH = 1<<25;
+
+    /* the source scanner, or the scanner of the region once it is opened */
+    FastScanner scanner;
+    /* channel of a splittable file source, the region [start, end) is used once scanner is null */
+    final FileChannel channel;
+    long start, end;
+    /* metrics of the source scanner, also counted in by the scanners of the regions */
+    final ScannerMetrics metrics;
+    private boolean ownsScanner;
+    int batch;
+
+    TokenSpliterator(FastScanner scanner) {
+        this.scanner = scanner;
+        this.channel = scanner.splittableChannel();
+        this.metrics = scanner.metrics();
+        this.ownsScanner = false;
+    }
+
+    TokenSpliterator(FileChannel channel, long start, long end, ScannerMetrics metrics) {
+        this.channel = channel;
+        this.start = start;
+        this.end = end;
+        this.metrics = metrics;
+        this.ownsScanner = true;
+    }
+
+    /* the scanner to read from, opening the scanner of the region on first use */
+    final FastScanner scanner() {
+        if (scanner == null)
+            scanner = new FastScanner(new MappedFileInputStream(channel, start, end, false), REGION_BUFFER_SIZE)
+                    .useMetrics(metrics);
+        return scanner;
+    }
+
+    /* closes the scanner of a region once all its values are read */
+    final void finish() throws IOException {
+        if (ownsScanner) scanner.close();
+    }
+
+    /*
+     * Returns a token boundary near the middle of the remaining file region, or -1 if
+     * the source cannot be split. The source scanner hands its remaining input over
+     * to the region on the first split, a region is split only before it is read.
+     */
+    final long splitPoint() {
+        if (channel == null || (ownsScanner && scanner != null)) return -1;
+        try {
+            if (scanner != null) {
+                long position = scanner.position(), size = scanner.end();
+                if (size - position < 2 * MIN_SPLIT_SIZE) return -1;
+                scanner.skipToEnd();
+                scanner = null;
+                ownsScanner = true;
+                start = position;
+                end = size;
+            }
+            if (end - start < 2 * MIN_SPLIT_SIZE) return -1;
+            long mid = MappedFileInputStream.nextTokenBoundary(channel, start + (end - start) / 2, end);
+            return mid < end ? mid : -1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* the next batch size for splitting a source which is not a file */
+    final int nextBatch() {
+        return batch = Math.min(MAX_BATCH, batch + BATCH_UNIT);
+    }
+
+    public long estimateSize() {
+        if (channel == null) return Long.MAX_VALUE;
+        if (!ownsScanner && scanner != null) {
+            try {
+                return scanner.end() - scanner.position();
+            } catch (IOException e) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return end - start;
+    }
+
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    /** The integers of the scanner, validated like <tt>nextIntStrict()</tt>. */
+    static final class Ints extends TokenSpliterator implements Spliterator.OfInt {
+
+        Ints(FastScanner scanner) {
+            super(scanner);
+        }
+
+        private Ints(FileChannel channel, long start, long end, ScannerMetrics metrics) {
+            super(channel, start, end, metrics);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            Objects.requireNonNull(action);
+            try {
+                FastScanner scanner = scanner();
+                if (!scanner.hasNext()) {
+                    finish();
+                    return false;
+                }
+                action.accept(scanner.nextIntStrict());
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+            try {
+                FastScanner scanner = scanner();
+                int[] values = new int[BATCH_UNIT];
+                int n;
+                do {
+                    n = scanner.readIntsStrict(values, 0, values.length);
+                    for (int i = 0; i < n; i++) action.accept(values[i]);
+                } while (n == values.length);
+                finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            long mid = splitPoint();
+            if (mid != -1) {
+                Ints prefix = new Ints(channel, start, mid, metrics);
+                start = mid;
+                return prefix;
+            }
+            if (channel != null) return null;
+            try {
+                int[] values = new int[nextBatch()];
+                int n = scanner().readIntsStrict(values, 0, values.length);
+                return n == 0 ? null : Spliterators.spliterator(values, 0, n, CHARACTERISTICS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** The long values of the scanner, validated like <tt>nextLongStrict()</tt>. */
+    static final class Longs extends TokenSpliterator implements Spliterator.OfLong {
+
+        Longs(FastScanner scanner) {
+            super(scanner);
+        }
+
+        private Longs(FileChannel channel, long start, long end, ScannerMetrics metrics) {
+            super(channel, start, end, metrics);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+            try {
+                FastScanner scanner = scanner();
+                if (!scanner.hasNext()) {
+                    finish();
+                    return false;
+                }
+                action.accept(scanner.nextLongStrict());
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+            try {
+                FastScanner scanner = scanner();
+                long[] values = new long[BATCH_UNIT];
+                int n;
+                do {
+                    n = scanner.readLongsStrict(values, 0, values.length);
+                    for (int i = 0; i < n; i++) action.accept(values[i]);
+                } while (n == values.length);
+                finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long mid = splitPoint();
+            if (mid != -1) {
+                Longs prefix = new Longs(channel, start, mid, metrics);
+                start = mid;
+                return prefix;
+            }
+            if (channel != null) return null;
+            try {
+                long[] values = new long[nextBatch()];
+                int n = scanner().readLongsStrict(values, 0, values.length);
+                return n == 0 ? null : Spliterators.spliterator(values, 0, n, CHARACTERISTICS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** The double values of the scanner, validated like <tt>nextDoubleStrict()</tt>. */
+    static final class Doubles extends TokenSpliterator implements Spliterator.OfDouble {
+
+        Doubles(FastScanner scanner) {
+            super(scanner);
+        }
+
+        private Doubles(FileChannel channel, long start, long end, ScannerMetrics metrics) {
+            super(channel, start, end, metrics);
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            try {
+                FastScanner scanner = scanner();
+                if (!scanner.hasNext()) {
+                    finish();
+                    return false;
+                }
+                action.accept(scanner.nextDoubleStrict());
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            try {
+                FastScanner scanner = scanner();
+                double[] values = new double[BATCH_UNIT];
+                int n;
+                do {
+                    n = scanner.readDoublesStrict(values, 0, values.length);
+                    for (int i = 0; i < n; i++) action.accept(values[i]);
+                } while (n == values.length);
+                finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            long mid = splitPoint();
+            if (mid != -1) {
+                Doubles prefix = new Doubles(channel, start, mid, metrics);
+                start = mid;
+                return prefix;
+            }
+            if (channel != null) return null;
+            try {
+                double[] values = new double[nextBatch()];
+                int n = scanner().readDoublesStrict(values, 0, values.length);
+                return n == 0 ? null : Spliterators.spliterator(values, 0, n, CHARACTERISTICS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reusable view over the bytes of a token read by
+ * {@link FastScanner#nextToken(TokenView)}.<br>
+ * The view usually points directly into the internal buffer of the scanner, so no
+ * bytes are copied and no String is created for the token. Only a token crossing a
+ * buffer refill is copied into a spill array owned by the view. The contents of a
+ * view are therefore valid only until the next call on the scanner; use
+ * {@link #toString()} or {@link #toByteArray()} to keep them.
+ */
+public final class TokenView implements Comparable<TokenView> {
+
+    private byte[] array;
+    private int offset, length;
+    private byte[] spill = new byte[64];
+
+    /**
+     * Constructs an empty view which can be passed to
+     * {@link FastScanner#nextToken(TokenView)}.
+     */
+    public TokenView() {
+        array = spill;
+    }
+
+    /* points the view to the given bytes without copying them */
+    void set(byte[] array, int offset, int length) {
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /* empties the spill array before a token is copied into it */
+    void clearSpill() {
+        array = spill;
+        offset = length = 0;
+    }
+
+    /* copies the bytes at the end of the spill array, called after clearSpill() */
+    void append(byte[] src, int off, int len) {
+        if (length + len > spill.length) spill = Arrays.copyOf(spill, Math.max(length + len, spill.length << 1));
+        System.arraycopy(src, off, spill, length, len);
+        array = spill;
+        length += len;
+    }
+
+    /**
+     * Returns the array holding the bytes of the token. The token starts
+     * at {@link #offset()} and spans {@link #length()} bytes.
+     *
+     * @return the backing array, which must not be modified
+     */
+    public byte[] array() {
+        return array;
+    }
+
+    /**
+     * @return the index of the first byte of the token in {@link #array()}
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * @return the number of bytes in the token
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param index index of the byte in the token
+     * @return the byte at the given index of the token
+     * @throws IndexOutOfBoundsException if the index is not inside the token
+     */
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(String.valueOf(index));
+        return array[offset + index];
+    }
+
+    /**
+     * @return a copy of the bytes of the token
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(array, offset, offset + length);
+    }
+
+    /**
+     * Returns the hash code of the token bytes. For ASCII tokens it is equal
+     * to the hash code of the corresponding String.
+     */
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) h = 31 * h + (array[i] & 0xFF);
+        return h;
+    }
+
+    /**
+     * Two views are equal if they hold the same bytes.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TokenView)) return false;
+        TokenView other = (TokenView) o;
+        return contentEquals(other.array, other.offset, other.length);
+    }
+
+    /**
+     * @param bytes bytes to compare with
+     * @return <code>true</code> if the token consists of exactly the given bytes
+     */
+    public boolean contentEquals(byte[] bytes) {
+        return contentEquals(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes array holding the bytes to compare with
+     * @param off   index of the first byte to compare
+     * @param len   number of bytes to compare
+     * @return <code>true</code> if the token consists of exactly the given bytes
+     */
+    public boolean contentEquals(byte[] bytes, int off, int len) {
+        if (len != length) return false;
+        for (int i = 0; i < len; i++) if (array[offset + i] != bytes[off + i]) return false;
+        return true;
+    }
+
+    /**
+     * Compares the token with a String without decoding the token, as long as
+     * the String is ASCII.
+     *
+     * @param s String to compare with
+     * @return <code>true</code> if the token is the UTF-8 encoding of the String
+     */
+    public boolean contentEquals(CharSequence s) {
+        int n = s.length();
+        if (n > length) return false;
+        for (int i = 0; i < n; i++) {
+            char ch = s.charAt(i);
+            if (ch >= 0x80) return toString().contentEquals(s);
+            if (array[offset + i] != ch) return false;
+        }
+        return n == length;
+    }
+
+    /**
+     * Compares the tokens lexicographically by their unsigned bytes, which is
+     * the code point order for UTF-8 tokens.
+     */
+    @Override
+    public int compareTo(TokenView o) {
+        int n = Math.min(length, o.length);
+        for (int i = 0; i < n; i++) {
+            int d = (array[offset + i] & 0xFF) - (o.array[o.offset + i] & 0xFF);
+            if (d != 0) return d;
+        }
+        return length - o.length;
+    }
+
+    /**
+     * @return the token decoded as a UTF-8 String
+     */
+    @Override
+    public String toString() {
+        return new String(array, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param charset charset of the token
+     * @return the token decoded with the charset
+     */
+    public String toString(Charset charset) {
+        return new String(array, offset, length, charset);
+    }
+}
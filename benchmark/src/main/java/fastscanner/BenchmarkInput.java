@@ -0,0 +1,176 @@
+package fastscanner;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A generated benchmark input of a given token shape and size, opened from one of
+ * the supported sources.<br>
+ * The inputs are generated with a fixed seed and cached as files in the temporary
+ * directory, so large inputs are generated only once per machine.
+ */
+final class BenchmarkInput {
+
+    /** The kind of tokens in the input. */
+    enum Shape {
+        SHORTS, INTS, LONGS, DOUBLES, WORDS, LINES, TEXT, CSV
+    }
+
+    /** Where the scanners read the input from. */
+    enum Source {
+        /** the input is read from a String held in memory */
+        STRING,
+        /** the input is read from a FileInputStream */
+        STREAM,
+        /** the input is read from the file as File object */
+        FILE,
+        /** the input file is memory mapped */
+        MAPPED,
+        /** the input is read from a FileChannel */
+        CHANNEL
+    }
+
+    private static final String[] WORDS = new String[1000];
+
+    static {
+        Random random = new Random(7);
+        for (int i = 0; i < WORDS.length; i++) {
+            char[] word = new char[3 + random.nextInt(10)];
+            for (int j = 0; j < word.length; j++) word[j] = (char) ('a' + random.nextInt(26));
+            WORDS[i] = new String(word);
+        }
+    }
+
+    final Path file;
+    final int tokens;
+    private final Source source;
+    private final String string;
+
+    private BenchmarkInput(Path file, int tokens, Source source) throws IOException {
+        this.file = file;
+        this.tokens = tokens;
+        this.source = source;
+        this.string = source == Source.STRING ? new String(Files.readAllBytes(file), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Returns the input of the shape and size, generating its file if needed.
+     *
+     * @param shape  kind of tokens in the input
+     * @param size   approximate size such as <code>64KB</code>, <code>16MB</code> or <code>1GB</code>
+     * @param source where the scanners read the input from
+     */
+    static BenchmarkInput create(Shape shape, String size, Source source) throws IOException {
+        long bytes = parseSize(size);
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"));
+        String name = "fastscanner-bench-" + shape.name().toLowerCase(Locale.ROOT) + "-" + size;
+        Path file = dir.resolve(name + ".txt"), count = dir.resolve(name + ".count");
+        if (!Files.exists(file) || !Files.exists(count)) {
+            int tokens = generate(shape, bytes, file);
+            Files.write(count, String.valueOf(tokens).getBytes(StandardCharsets.US_ASCII));
+        }
+        int tokens = Integer.parseInt(new String(Files.readAllBytes(count), StandardCharsets.US_ASCII).trim());
+        return new BenchmarkInput(file, tokens, source);
+    }
+
+    /**
+     * Opens a new <code>FastScanner</code> over the input.
+     */
+    FastScanner open() throws IOException {
+        switch (source) {
+            case STRING: return new FastScanner(string);
+            case STREAM: return new FastScanner(new FileInputStream(file.toFile()));
+            case FILE: return new FastScanner(file.toFile());
+            case CHANNEL: return new FastScanner(FileChannel.open(file, StandardOpenOption.READ));
+            default: return new FastScanner(file, true);
+        }
+    }
+
+    /**
+     * Opens the input as InputStream for the JDK readers.
+     */
+    InputStream stream() throws IOException {
+        if (source == Source.STRING) return new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8));
+        return new FileInputStream(file.toFile());
+    }
+
+    /**
+     * Opens the input as Reader for the JDK readers.
+     */
+    Reader reader() throws IOException {
+        return new InputStreamReader(stream(), StandardCharsets.UTF_8);
+    }
+
+    static long parseSize(String size) {
+        String s = size.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (s.endsWith("KB")) unit = 1L << 10;
+        else if (s.endsWith("MB")) unit = 1L << 20;
+        else if (s.endsWith("GB")) unit = 1L << 30;
+        if (unit != 1) s = s.substring(0, s.length() - 2);
+        return Long.parseLong(s) * unit;
+    }
+
+    /* writes tokens of the shape until the file reaches the size, returns the number of tokens */
+    private static int generate(Shape shape, long bytes, Path file) throws IOException {
+        Random random = new Random(42);
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        int tokens = 0;
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            StringBuilder sb = new StringBuilder();
+            while (written < bytes) {
+                sb.setLength(0);
+                appendToken(shape, random, sb);
+                tokens++;
+                sb.append(shape == Shape.LINES || shape == Shape.CSV || tokens % 10 == 0 ? '\n' : ' ');
+                out.append(sb);
+                written += sb.length();
+            }
+        }
+        Files.move(tmp, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        return tokens;
+    }
+
+    private static void appendToken(Shape shape, Random random, StringBuilder sb) {
+        switch (shape) {
+            case SHORTS: sb.append((short) random.nextInt()); break;
+            case INTS: sb.append(random.nextInt() >> random.nextInt(32)); break;
+            case LONGS: sb.append(random.nextLong() >> random.nextInt(64)); break;
+            case DOUBLES:
+                if (random.nextInt(4) == 0) sb.append(random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20));
+                else sb.append(random.nextInt(1000000)).append('.').append(random.nextInt(10000));
+                break;
+            case WORDS: sb.append(WORDS[random.nextInt(WORDS.length)]); break;
+            case LINES:
+                for (int i = 5 + random.nextInt(10); i > 0; i--) sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+                sb.setLength(sb.length() - 1);
+                break;
+            case CSV:
+                sb.append(random.nextInt(1000000)).append(',').append(random.nextLong()).append(',')
+                        .append(random.nextInt(100000)).append('.').append(random.nextInt(100)).append(',');
+                if (random.nextInt(4) == 0) sb.append('"').append(WORDS[random.nextInt(WORDS.length)]).append(' ')
+                        .append(WORDS[random.nextInt(WORDS.length)]).append('"');
+                else sb.append(WORDS[random.nextInt(WORDS.length)]);
+                sb.append(',');
+                if (random.nextInt(8) != 0) sb.append(random.nextInt(100));
+                break;
+            default:
+                sb.append(WORDS[random.nextInt(WORDS.length)]).append('=').append(random.nextInt(100000))
+                        .append('.').append(random.nextInt(100)).append(';');
+        }
+    }
+}
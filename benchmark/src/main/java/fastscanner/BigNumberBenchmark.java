@@ -0,0 +1,100 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads integers and decimals of a number of digits as <code>BigInteger</code> and
+ * <code>BigDecimal</code> by <code>Scanner</code>, by <tt>next()</tt> and their String
+ * constructors, and by <tt>nextBigIntegerStrict()</tt> and <tt>nextBigDecimalStrict()</tt>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BigNumberBenchmark {
+
+    @Param({"16MB"})
+    public String size;
+
+    @Param({"24", "400", "100000"})
+    public int digits;
+
+    private String integers, decimals;
+    private int count;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        long bytes = BenchmarkInput.parseSize(size);
+        StringBuilder ints = new StringBuilder(), decs = new StringBuilder();
+        for (count = 0; ints.length() < bytes; count++) {
+            StringBuilder number = new StringBuilder();
+            number.append((char) ('1' + random.nextInt(9)));
+            for (int i = 1; i < digits; i++) number.append((char) ('0' + random.nextInt(10)));
+            ints.append(number).append('\n');
+            decs.append(number.insert(digits / 2, '.')).append('\n');
+        }
+        integers = ints.toString();
+        decimals = decs.toString();
+    }
+
+    @Benchmark
+    public int scannerBigInteger() {
+        Scanner scanner = new Scanner(integers);
+        int h = 0;
+        for (int i = 0; i < count; i++) h += scanner.nextBigInteger().hashCode();
+        return h;
+    }
+
+    @Benchmark
+    public int nextAndConstructor() throws IOException {
+        FastScanner scanner = new FastScanner(integers);
+        int h = 0;
+        for (int i = 0; i < count; i++) h += new BigInteger(scanner.next()).hashCode();
+        return h;
+    }
+
+    @Benchmark
+    public int nextBigInteger() throws IOException {
+        FastScanner scanner = new FastScanner(integers);
+        int h = 0;
+        for (int i = 0; i < count; i++) h += scanner.nextBigIntegerStrict().hashCode();
+        return h;
+    }
+
+    @Benchmark
+    public int nextAndDecimalConstructor() throws IOException {
+        FastScanner scanner = new FastScanner(decimals);
+        int h = 0;
+        for (int i = 0; i < count; i++) h += new BigDecimal(scanner.next()).hashCode();
+        return h;
+    }
+
+    @Benchmark
+    public int nextBigDecimal() throws IOException {
+        FastScanner scanner = new FastScanner(decimals);
+        int h = 0;
+        for (int i = 0; i < count; i++) h += scanner.nextBigDecimalStrict().hashCode();
+        return h;
+    }
+}
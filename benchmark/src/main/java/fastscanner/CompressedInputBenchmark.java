@@ -0,0 +1,94 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads a gzip file of ints through a <code>GZIPInputStream</code> on the parsing
+ * thread, decompressed on a background thread and decompressed by parallel member
+ * inflation. The file is a single member or one member per MB of text, like
+ * appended logs or the output of bgzip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressedInputBenchmark {
+
+    private static final int MEMBER_SIZE = 1 << 20;
+
+    @Param({"64MB"})
+    public String size;
+
+    @Param({"SINGLE", "MEMBERS"})
+    public String members;
+
+    private BenchmarkInput ints;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ints = BenchmarkInput.create(BenchmarkInput.Shape.INTS, size, BenchmarkInput.Source.STREAM);
+        file = ints.file.resolveSibling(ints.file.getFileName() + "." + members.toLowerCase() + ".gz");
+        if (Files.exists(file)) return;
+        byte[] text = Files.readAllBytes(ints.file);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int step = members.equals("SINGLE") ? text.length : MEMBER_SIZE;
+            for (int off = 0; off < text.length; off += step) {
+                GZIPOutputStream member = new GZIPOutputStream(out, 1 << 16) {
+                    @Override
+                    public void close() throws IOException {
+                        finish();
+                    }
+                };
+                member.write(text, off, Math.min(step, text.length - off));
+                member.close();
+            }
+        }
+    }
+
+    private long sum(FastScanner scanner) throws IOException {
+        long sum = 0;
+        for (int i = ints.tokens; i > 0; i--) sum += scanner.nextIntFast();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long gzipInputStream() throws IOException {
+        InputStream in = new GZIPInputStream(new FileInputStream(file.toFile()), 1 << 16);
+        return sum(new FastScanner(in));
+    }
+
+    @Benchmark
+    public long pipelined() throws IOException {
+        return sum(FastScanner.builder().decompress(true).decompressThreads(1).build(file));
+    }
+
+    @Benchmark
+    public long parallelMembers() throws IOException {
+        return sum(FastScanner.builder().decompress(true).build(file));
+    }
+}
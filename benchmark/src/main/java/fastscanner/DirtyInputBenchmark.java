@@ -0,0 +1,89 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.InputMismatchException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads ints of which a percentage are malformed by <tt>nextIntStrict()</tt>
+ * catching the mismatches, and by <tt>tryNextInt()</tt>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DirtyInputBenchmark {
+
+    @Param({"5000000"})
+    public int tokens;
+
+    @Param({"0", "3"})
+    public int dirtyPercent;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Paths.get(System.getProperty("java.io.tmpdir"), "fastscanner-bench-dirty-" + tokens + "-" + dirtyPercent + ".txt");
+        if (!Files.exists(file)) {
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Random random = new Random(42);
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.US_ASCII)) {
+                for (int i = 0; i < tokens; i++) {
+                    out.write(random.nextInt(100) < dirtyPercent ? "n/a" : Integer.toString(random.nextInt()));
+                    out.write(i % 10 == 9 ? '\n' : ' ');
+                }
+            }
+            Files.move(tmp, file);
+        }
+    }
+
+    @Benchmark
+    public long strictCatching() throws IOException {
+        long sum = 0;
+        try (FastScanner scanner = new FastScanner(file)) {
+            while (scanner.hasNext()) {
+                try {
+                    sum += scanner.nextIntStrict();
+                } catch (InputMismatchException e) {
+                    scanner.next();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long tryNext() throws IOException {
+        long sum = 0;
+        ParseResult result = new ParseResult();
+        try (FastScanner scanner = new FastScanner(file)) {
+            ParseResult.Status status;
+            while ((status = scanner.tryNextInt(result)) != ParseResult.Status.END_OF_INPUT) {
+                if (status == ParseResult.Status.OK) sum += result.intValue();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,148 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a whole input of decimal numbers with every floating point method of
+ * <code>FastScanner</code> and with the JDK readers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DoubleBenchmark {
+
+    @Param({"64KB", "16MB"})
+    public String size;
+
+    @Param({"STRING", "STREAM", "FILE", "MAPPED", "CHANNEL"})
+    public String source;
+
+    private BenchmarkInput doubles, text;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkInput.Source from = BenchmarkInput.Source.valueOf(source);
+        doubles = BenchmarkInput.create(BenchmarkInput.Shape.DOUBLES, size, from);
+        text = BenchmarkInput.create(BenchmarkInput.Shape.TEXT, size, from);
+    }
+
+    @Benchmark
+    public double nextDoubleFast() throws IOException {
+        FastScanner scanner = doubles.open();
+        double sum = 0;
+        for (int i = doubles.tokens; i > 0; i--) sum += scanner.nextDoubleFast();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public double nextDoubleStrict() throws IOException {
+        FastScanner scanner = doubles.open();
+        double sum = 0;
+        for (int i = doubles.tokens; i > 0; i--) sum += scanner.nextDoubleStrict();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public int readDoublesFast() throws IOException {
+        FastScanner scanner = doubles.open();
+        int n = scanner.readDoublesFast(new double[doubles.tokens], 0, doubles.tokens);
+        scanner.close();
+        return n;
+    }
+
+    @Benchmark
+    public int readDoublesStrict() throws IOException {
+        FastScanner scanner = doubles.open();
+        int n = scanner.readDoublesStrict(new double[doubles.tokens], 0, doubles.tokens);
+        scanner.close();
+        return n;
+    }
+
+    @Benchmark
+    public double nextFloatFast() throws IOException {
+        FastScanner scanner = doubles.open();
+        double sum = 0;
+        for (int i = doubles.tokens; i > 0; i--) sum += scanner.nextFloatFast();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public double nextFloatStrict() throws IOException {
+        FastScanner scanner = doubles.open();
+        double sum = 0;
+        for (int i = doubles.tokens; i > 0; i--) sum += scanner.nextFloatStrict();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public double nextNumberInText() throws IOException {
+        FastScanner scanner = text.open();
+        double sum = 0;
+        for (int i = text.tokens; i > 0; i--) sum += scanner.nextNumberInText();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public double scannerNextDouble() throws IOException {
+        Scanner scanner = new Scanner(doubles.reader()).useLocale(Locale.ROOT);
+        double sum = 0;
+        for (int i = doubles.tokens; i > 0; i--) sum += scanner.nextDouble();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public double bufferedReaderParseDouble() throws IOException {
+        BufferedReader reader = new BufferedReader(doubles.reader());
+        double sum = 0;
+        for (String line; (line = reader.readLine()) != null; )
+            for (String token : line.split(" ")) sum += Double.parseDouble(token);
+        reader.close();
+        return sum;
+    }
+
+    @Benchmark
+    public double bufferedReaderParseFloat() throws IOException {
+        BufferedReader reader = new BufferedReader(doubles.reader());
+        double sum = 0;
+        for (String line; (line = reader.readLine()) != null; )
+            for (String token : line.split(" ")) sum += Float.parseFloat(token);
+        reader.close();
+        return sum;
+    }
+
+    /* StreamTokenizer does not parse exponents, so it is only an upper bound of the JDK speed */
+    @Benchmark
+    public double streamTokenizerDoubles() throws IOException {
+        StreamTokenizer tokenizer = new StreamTokenizer(new BufferedReader(doubles.reader()));
+        double sum = 0;
+        while (tokenizer.nextToken() != StreamTokenizer.TT_EOF) sum += tokenizer.nval;
+        return sum;
+    }
+}
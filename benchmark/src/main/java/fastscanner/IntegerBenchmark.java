@@ -0,0 +1,213 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a whole input of shorts, ints or longs with every integer method of
+ * <code>FastScanner</code> and with the JDK readers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntegerBenchmark {
+
+    @Param({"64KB", "16MB"})
+    public String size;
+
+    @Param({"STRING", "STREAM", "FILE", "MAPPED", "CHANNEL"})
+    public String source;
+
+    private BenchmarkInput shorts, ints, longs;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkInput.Source from = BenchmarkInput.Source.valueOf(source);
+        shorts = BenchmarkInput.create(BenchmarkInput.Shape.SHORTS, size, from);
+        ints = BenchmarkInput.create(BenchmarkInput.Shape.INTS, size, from);
+        longs = BenchmarkInput.create(BenchmarkInput.Shape.LONGS, size, from);
+    }
+
+    @Benchmark
+    public long nextIntFast() throws IOException {
+        FastScanner scanner = ints.open();
+        long sum = 0;
+        for (int i = ints.tokens; i > 0; i--) sum += scanner.nextIntFast();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long nextIntStrict() throws IOException {
+        FastScanner scanner = ints.open();
+        long sum = 0;
+        for (int i = ints.tokens; i > 0; i--) sum += scanner.nextIntStrict();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public int readIntsFast() throws IOException {
+        FastScanner scanner = ints.open();
+        int n = scanner.readIntsFast(new int[ints.tokens], 0, ints.tokens);
+        scanner.close();
+        return n;
+    }
+
+    @Benchmark
+    public int readIntsStrict() throws IOException {
+        FastScanner scanner = ints.open();
+        int n = scanner.readIntsStrict(new int[ints.tokens], 0, ints.tokens);
+        scanner.close();
+        return n;
+    }
+
+    @Benchmark
+    public long intsSum() throws IOException {
+        FastScanner scanner = ints.open();
+        long sum = scanner.ints().asLongStream().sum();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long intsParallelSum() throws IOException {
+        FastScanner scanner = ints.open();
+        long sum = scanner.ints().parallel().asLongStream().sum();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long nextLongFast() throws IOException {
+        FastScanner scanner = longs.open();
+        long sum = 0;
+        for (int i = longs.tokens; i > 0; i--) sum += scanner.nextLongFast();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long nextLongStrict() throws IOException {
+        FastScanner scanner = longs.open();
+        long sum = 0;
+        for (int i = longs.tokens; i > 0; i--) sum += scanner.nextLongStrict();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public int readLongsFast() throws IOException {
+        FastScanner scanner = longs.open();
+        int n = scanner.readLongsFast(new long[longs.tokens], 0, longs.tokens);
+        scanner.close();
+        return n;
+    }
+
+    @Benchmark
+    public int readLongsStrict() throws IOException {
+        FastScanner scanner = longs.open();
+        int n = scanner.readLongsStrict(new long[longs.tokens], 0, longs.tokens);
+        scanner.close();
+        return n;
+    }
+
+    @Benchmark
+    public long nextShortFast() throws IOException {
+        FastScanner scanner = shorts.open();
+        long sum = 0;
+        for (int i = shorts.tokens; i > 0; i--) sum += scanner.nextShortFast();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long nextShortStrict() throws IOException {
+        FastScanner scanner = shorts.open();
+        long sum = 0;
+        for (int i = shorts.tokens; i > 0; i--) sum += scanner.nextShortStrict();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public int readShortsFast() throws IOException {
+        FastScanner scanner = shorts.open();
+        int n = scanner.readShortsFast(new short[shorts.tokens], 0, shorts.tokens);
+        scanner.close();
+        return n;
+    }
+
+    @Benchmark
+    public int readShortsStrict() throws IOException {
+        FastScanner scanner = shorts.open();
+        int n = scanner.readShortsStrict(new short[shorts.tokens], 0, shorts.tokens);
+        scanner.close();
+        return n;
+    }
+
+    @Benchmark
+    public long scannerNextInt() throws IOException {
+        Scanner scanner = new Scanner(ints.reader());
+        long sum = 0;
+        for (int i = ints.tokens; i > 0; i--) sum += scanner.nextInt();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long scannerNextLong() throws IOException {
+        Scanner scanner = new Scanner(longs.reader());
+        long sum = 0;
+        for (int i = longs.tokens; i > 0; i--) sum += scanner.nextLong();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long bufferedReaderParseInt() throws IOException {
+        BufferedReader reader = new BufferedReader(ints.reader());
+        long sum = 0;
+        for (String line; (line = reader.readLine()) != null; )
+            for (String token : line.split(" ")) sum += Integer.parseInt(token);
+        reader.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long bufferedReaderParseLong() throws IOException {
+        BufferedReader reader = new BufferedReader(longs.reader());
+        long sum = 0;
+        for (String line; (line = reader.readLine()) != null; )
+            for (String token : line.split(" ")) sum += Long.parseLong(token);
+        reader.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long streamTokenizerInts() throws IOException {
+        StreamTokenizer tokenizer = new StreamTokenizer(new BufferedReader(ints.reader()));
+        long sum = 0;
+        while (tokenizer.nextToken() != StreamTokenizer.TT_EOF) sum += (int) tokenizer.nval;
+        return sum;
+    }
+}
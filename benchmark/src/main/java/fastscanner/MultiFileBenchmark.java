@@ -0,0 +1,88 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a directory of small files of ints one file after another and with a
+ * <code>MultiFileScanner</code>. The files are the ints input split at line breaks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiFileBenchmark {
+
+    @Param({"64MB"})
+    public String size;
+
+    @Param({"16384"})
+    public int fileSize;
+
+    private MultiFileScanner files;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkInput ints = BenchmarkInput.create(BenchmarkInput.Shape.INTS, size, BenchmarkInput.Source.FILE);
+        Path directory = ints.file.resolveSibling(ints.file.getFileName() + "." + fileSize + ".files");
+        if (!Files.isDirectory(directory)) {
+            byte[] text = Files.readAllBytes(ints.file);
+            Path temp = Files.createTempDirectory(directory.getParent(), "files");
+            int start = 0, n = 0;
+            while (start < text.length) {
+                int end = Math.min(start + fileSize, text.length);
+                while (end < text.length && text[end - 1] != '\n') end++;
+                Files.write(temp.resolve(String.format("%08d.txt", n++)), Arrays.copyOfRange(text, start, end));
+                start = end;
+            }
+            Files.move(temp, directory);
+        }
+        files = MultiFileScanner.glob(directory, "*.txt");
+    }
+
+    @Benchmark
+    public long sequential() throws IOException {
+        long sum = 0;
+        FastScanner.Builder builder = FastScanner.builder().bufferPool(BufferPool.shared());
+        for (Path file : files.files()) {
+            try (FastScanner scanner = builder.build(file)) {
+                while (scanner.hasNext()) sum += scanner.nextIntFast();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long concurrent() throws IOException {
+        long[] sum = new long[1];
+        files.forEach((file, scanner) -> {
+            long s = 0;
+            while (scanner.hasNext()) s += scanner.nextIntFast();
+            return s;
+        }, (file, s) -> sum[0] += s);
+        return sum[0];
+    }
+
+    @Benchmark
+    public int mergedInts() throws IOException {
+        return files.readIntsFast().length;
+    }
+}
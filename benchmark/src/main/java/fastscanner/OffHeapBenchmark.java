@@ -0,0 +1,88 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads all the longs of the input into a growing <code>long[]</code> on the heap,
+ * and into an <code>OffHeapColumn</code> in direct memory and in a memory mapped file.
+ * Run with <code>-prof gc</code> to compare the heap allocated per load.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffHeapBenchmark {
+
+    @Param({"64MB"})
+    public String size;
+
+    private String input;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        long bytes = BenchmarkInput.parseSize(size);
+        StringBuilder longs = new StringBuilder();
+        while (longs.length() < bytes) longs.append(random.nextLong()).append('\n');
+        input = longs.toString();
+        file = Files.createTempFile("fastscanner-column", ".bin");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long heapArray() throws IOException {
+        FastScanner scanner = new FastScanner(input);
+        long[] values = new long[4096];
+        int size = 0, n;
+        while ((n = scanner.readLongsFast(values, size, values.length - size)) == values.length - size) {
+            size += n;
+            values = Arrays.copyOf(values, size << 1);
+        }
+        size += n;
+        return values[size - 1] + size;
+    }
+
+    @Benchmark
+    public long directColumn() throws IOException {
+        try (OffHeapArena arena = new OffHeapArena()) {
+            OffHeapColumn column = arena.allocate(ColumnBatch.Type.LONG);
+            long size = column.readFast(new FastScanner(input));
+            return column.getLong(size - 1) + size;
+        }
+    }
+
+    @Benchmark
+    public long mappedColumn() throws IOException {
+        try (OffHeapArena arena = new OffHeapArena()) {
+            OffHeapColumn column = arena.map(ColumnBatch.Type.LONG, file);
+            long size = column.readFast(new FastScanner(input));
+            return column.getLong(size - 1) + size;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the line in the middle of an input of lines by reading the lines before it
+ * and by seeking with an <code>OffsetIndex</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffsetIndexBenchmark {
+
+    @Param({"64MB"})
+    public String size;
+
+    @Param({"4096"})
+    public int interval;
+
+    private BenchmarkInput lines;
+    private OffsetIndex index;
+    private long line;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        lines = BenchmarkInput.create(BenchmarkInput.Shape.LINES, size, BenchmarkInput.Source.FILE);
+        index = OffsetIndex.build(lines.file, interval);
+        line = index.lines() / 2;
+    }
+
+    @Benchmark
+    public String readLines() throws IOException {
+        FastScanner scanner = new FastScanner(lines.file);
+        for (long i = line; i > 0; i--) scanner.nextLine();
+        String s = scanner.nextLine();
+        scanner.close();
+        return s;
+    }
+
+    @Benchmark
+    public String seekLine() throws IOException {
+        FastScanner scanner = new FastScanner(lines.file).seekLine(index, line);
+        String s = scanner.nextLine();
+        scanner.close();
+        return s;
+    }
+}
@@ -0,0 +1,80 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a whole input of longs or doubles by parsing the text and from its
+ * <code>ParseCache</code> sidecar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseCacheBenchmark {
+
+    @Param({"16MB"})
+    public String size;
+
+    private BenchmarkInput longs, doubles;
+    private long[] longValues;
+    private double[] doubleValues;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        longs = BenchmarkInput.create(BenchmarkInput.Shape.LONGS, size, BenchmarkInput.Source.FILE);
+        doubles = BenchmarkInput.create(BenchmarkInput.Shape.DOUBLES, size, BenchmarkInput.Source.FILE);
+        if (!ParseCache.isCurrent(longs.file)) ParseCache.write(longs.file);
+        if (!ParseCache.isCurrent(doubles.file)) ParseCache.write(doubles.file);
+        longValues = new long[longs.tokens];
+        doubleValues = new double[doubles.tokens];
+    }
+
+    @Benchmark
+    public long parseLongs() throws IOException {
+        FastScanner scanner = new FastScanner(new FileInputStream(longs.file.toFile()));
+        int n = scanner.readLongsFast(longValues, 0, longValues.length);
+        scanner.close();
+        return n + longValues[n - 1];
+    }
+
+    @Benchmark
+    public long cachedLongs() throws IOException {
+        FastScanner scanner = new FastScanner(longs.file);
+        int n = scanner.readLongsFast(longValues, 0, longValues.length);
+        scanner.close();
+        return n + longValues[n - 1];
+    }
+
+    @Benchmark
+    public double parseDoubles() throws IOException {
+        FastScanner scanner = new FastScanner(new FileInputStream(doubles.file.toFile()));
+        int n = scanner.readDoublesStrict(doubleValues, 0, doubleValues.length);
+        scanner.close();
+        return n + doubleValues[n - 1];
+    }
+
+    @Benchmark
+    public double cachedDoubles() throws IOException {
+        FastScanner scanner = new FastScanner(doubles.file);
+        int n = scanner.readDoublesStrict(doubleValues, 0, doubleValues.length);
+        scanner.close();
+        return n + doubleValues[n - 1];
+    }
+}
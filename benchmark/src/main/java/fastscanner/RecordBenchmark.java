@@ -0,0 +1,76 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a whole CSV input of int, long, double, text and nullable int columns with
+ * <code>DelimitedReader</code> and with a BufferedReader splitting the lines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordBenchmark {
+
+    @Param({"64KB", "16MB"})
+    public String size;
+
+    @Param({"STRING", "STREAM", "FILE", "MAPPED", "CHANNEL"})
+    public String source;
+
+    private BenchmarkInput csv;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkInput.Source from = BenchmarkInput.Source.valueOf(source);
+        csv = BenchmarkInput.create(BenchmarkInput.Shape.CSV, size, from);
+    }
+
+    @Benchmark
+    public long readBatch() throws IOException {
+        DelimitedReader reader = new DelimitedReader(csv.open());
+        ColumnBatch batch = new ColumnBatch(4096, ColumnBatch.Type.INT, ColumnBatch.Type.LONG,
+                ColumnBatch.Type.DOUBLE, ColumnBatch.Type.TOKEN, ColumnBatch.Type.INT);
+        TokenView view = new TokenView();
+        long sum = 0;
+        for (int n; (n = reader.readBatch(batch)) > 0; ) {
+            int[] ids = batch.ints(0), counts = batch.ints(4);
+            long[] longs = batch.longs(1);
+            double[] doubles = batch.doubles(2);
+            for (int i = 0; i < n; i++)
+                sum += ids[i] + longs[i] + (long) doubles[i] + counts[i] + batch.token(3, i, view).length();
+        }
+        reader.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long bufferedReaderSplit() throws IOException {
+        BufferedReader reader = new BufferedReader(csv.reader());
+        long sum = 0;
+        for (String line; (line = reader.readLine()) != null; ) {
+            String[] fields = line.split(",", -1);
+            sum += Integer.parseInt(fields[0]) + Long.parseLong(fields[1]) + (long) Double.parseDouble(fields[2])
+                    + (fields[4].isEmpty() ? 0 : Integer.parseInt(fields[4])) + fields[3].length();
+        }
+        reader.close();
+        return sum;
+    }
+}
@@ -0,0 +1,106 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static fastscanner.ColumnBatch.Type.DOUBLE;
+import static fastscanner.ColumnBatch.Type.INT;
+import static fastscanner.ColumnBatch.Type.LONG;
+import static fastscanner.ColumnBatch.Type.TOKEN;
+
+/**
+ * Reads lines of <code>long int double token</code> by the <tt>next*()</tt> methods
+ * and by a <code>RecordReader</code> into a record and into column batches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordReaderBenchmark {
+
+    @Param({"1000000"})
+    public int records;
+
+    private Path file;
+    private ColumnBatch batch;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Paths.get(System.getProperty("java.io.tmpdir"), "fastscanner-bench-records-" + records + ".txt");
+        if (!Files.exists(file)) {
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Random random = new Random(42);
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.US_ASCII)) {
+                for (int i = 0; i < records; i++) {
+                    out.write(random.nextLong() + " " + random.nextInt() + " " + random.nextInt(1000000) / 100.0
+                            + " " + Integer.toString(random.nextInt(1 << 20), 36) + "\n");
+                }
+            }
+            Files.move(tmp, file);
+        }
+        batch = new ColumnBatch(4096, LONG, INT, DOUBLE, TOKEN);
+    }
+
+    @Benchmark
+    public long nextMethods() throws IOException {
+        FastScanner scanner = new FastScanner(file);
+        TokenView token = new TokenView();
+        long sum = 0;
+        for (int i = records; i > 0; i--) {
+            sum += scanner.nextLongStrict() + scanner.nextIntStrict() + (long) scanner.nextDoubleStrict();
+            scanner.nextToken(token);
+            sum += token.length();
+        }
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long record() throws IOException {
+        RecordReader reader = new RecordReader(new FastScanner(file), LONG, INT, DOUBLE, TOKEN);
+        RecordReader.Record record = reader.newRecord();
+        TokenView token = new TokenView();
+        long sum = 0;
+        while (reader.readStrict(record)) {
+            sum += record.getLong(0) + record.getInt(1) + (long) record.getDouble(2) + record.getToken(3, token).length();
+        }
+        reader.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long batch() throws IOException {
+        RecordReader reader = new RecordReader(new FastScanner(file), LONG, INT, DOUBLE, TOKEN);
+        long sum = 0;
+        int n;
+        while ((n = reader.readBatchStrict(batch)) > 0) {
+            long[] longs = batch.longs(0);
+            int[] ints = batch.ints(1);
+            double[] doubles = batch.doubles(2);
+            for (int i = 0; i < n; i++) sum += longs[i] + ints[i] + (long) doubles[i];
+        }
+        reader.close();
+        return sum;
+    }
+}
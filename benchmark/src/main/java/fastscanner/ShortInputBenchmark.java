@@ -0,0 +1,74 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a short input of integers with a new scanner per input, as a request
+ * handler does, comparing a newly allocated buffer, a pooled buffer and a reset
+ * scanner. Run with <code>-prof gc</code> to compare the allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ShortInputBenchmark {
+
+    @Param({"16", "256"})
+    public int values;
+
+    private byte[] input;
+    private final FastScanner.Builder pooled = FastScanner.builder().bufferPool(BufferPool.shared());
+    private final FastScanner reused = new FastScanner("");
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < values; i++) text.append(random.nextInt(1_000_000)).append(' ');
+        input = text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public long newScanner() throws IOException {
+        return sum(new FastScanner(new ByteArrayInputStream(input)));
+    }
+
+    @Benchmark
+    public long pooledScanner() throws IOException {
+        return sum(pooled.build(new ByteArrayInputStream(input)));
+    }
+
+    @Benchmark
+    public long resetScanner() throws IOException {
+        reused.reset(new ByteArrayInputStream(input));
+        long sum = 0;
+        for (int i = values; i > 0; i--) sum += reused.nextIntFast();
+        return sum;
+    }
+
+    private long sum(FastScanner scanner) throws IOException {
+        long sum = 0;
+        for (int i = values; i > 0; i--) sum += scanner.nextIntFast();
+        scanner.close();
+        return sum;
+    }
+}
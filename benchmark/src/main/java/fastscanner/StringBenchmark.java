@@ -0,0 +1,131 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a whole input of words or lines with the String methods of
+ * <code>FastScanner</code> and with the JDK readers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringBenchmark {
+
+    @Param({"64KB", "16MB"})
+    public String size;
+
+    @Param({"STRING", "STREAM", "FILE", "MAPPED", "CHANNEL"})
+    public String source;
+
+    private BenchmarkInput words, lines;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkInput.Source from = BenchmarkInput.Source.valueOf(source);
+        words = BenchmarkInput.create(BenchmarkInput.Shape.WORDS, size, from);
+        lines = BenchmarkInput.create(BenchmarkInput.Shape.LINES, size, from);
+    }
+
+    @Benchmark
+    public long next() throws IOException {
+        FastScanner scanner = words.open();
+        long sum = 0;
+        for (int i = words.tokens; i > 0; i--) sum += scanner.next().length();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long nextInterned() throws IOException {
+        FastScanner scanner = words.open();
+        TokenInterner interner = new TokenInterner(1<<12);
+        long sum = 0;
+        for (int i = words.tokens; i > 0; i--) sum += scanner.next(interner).length();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long nextToken() throws IOException {
+        FastScanner scanner = words.open();
+        TokenView view = new TokenView();
+        long sum = 0;
+        while (scanner.nextToken(view)) sum += view.hashCode();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long nextLine() throws IOException {
+        FastScanner scanner = lines.open();
+        long sum = 0;
+        for (int i = lines.tokens; i > 0; i--) sum += scanner.nextLine().length();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long scannerNext() throws IOException {
+        Scanner scanner = new Scanner(words.reader());
+        long sum = 0;
+        for (int i = words.tokens; i > 0; i--) sum += scanner.next().length();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long scannerNextLine() throws IOException {
+        Scanner scanner = new Scanner(lines.reader());
+        long sum = 0;
+        for (int i = lines.tokens; i > 0; i--) sum += scanner.nextLine().length();
+        scanner.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long bufferedReaderSplit() throws IOException {
+        BufferedReader reader = new BufferedReader(words.reader());
+        long sum = 0;
+        for (String line; (line = reader.readLine()) != null; )
+            for (String token : line.split(" ")) sum += token.length();
+        reader.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long bufferedReaderReadLine() throws IOException {
+        BufferedReader reader = new BufferedReader(lines.reader());
+        long sum = 0;
+        for (String line; (line = reader.readLine()) != null; ) sum += line.length();
+        reader.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long streamTokenizerWords() throws IOException {
+        StreamTokenizer tokenizer = new StreamTokenizer(new BufferedReader(words.reader()));
+        long sum = 0;
+        while (tokenizer.nextToken() != StreamTokenizer.TT_EOF) sum += tokenizer.sval.length();
+        return sum;
+    }
+}
@@ -0,0 +1,90 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the longs input and hashes every value a number of rounds, on the reading
+ * thread and on the workers of a <code>TokenPipeline</code> in and out of order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenPipelineBenchmark {
+
+    @Param({"64MB"})
+    public String size;
+
+    @Param({"16"})
+    public int rounds;
+
+    @Param({"SLEEPING", "YIELDING"})
+    public TokenPipeline.WaitStrategy waitStrategy;
+
+    private BenchmarkInput input;
+    private TokenPipeline<long[]> pipeline;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        input = BenchmarkInput.create(BenchmarkInput.Shape.LONGS, size, BenchmarkInput.Source.FILE);
+        pipeline = new TokenPipeline<>(64, () -> new long[4096]).waitStrategy(waitStrategy);
+    }
+
+    private long hash(long[] values, int n) {
+        long h = 0;
+        for (int i = 0; i < n; i++) {
+            long x = values[i];
+            for (int r = 0; r < rounds; r++) x = (x ^ x >>> 31) * 0x9E3779B97F4A7C15L;
+            h += x;
+        }
+        return h;
+    }
+
+    @Benchmark
+    public long singleThread() throws IOException {
+        long[] values = new long[4096];
+        long h = 0;
+        try (FastScanner scanner = input.open()) {
+            int n;
+            while ((n = scanner.readLongsFast(values, 0, values.length)) > 0) h += hash(values, n);
+        }
+        return h;
+    }
+
+    @Benchmark
+    public long unordered() throws IOException {
+        AtomicLong h = new AtomicLong();
+        try (FastScanner scanner = input.open()) {
+            pipeline.run(scanner, (s, values) -> s.readLongsFast(values, 0, values.length),
+                    (values, n) -> h.addAndGet(hash(values, n)));
+        }
+        return h.get();
+    }
+
+    @Benchmark
+    public long ordered() throws IOException {
+        long[] h = new long[1];
+        try (FastScanner scanner = input.open()) {
+            pipeline.run(scanner, (s, values) -> s.readLongsFast(values, 0, values.length),
+                    this::hash, result -> h[0] += result);
+        }
+        return h[0];
+    }
+}
@@ -0,0 +1,115 @@
+package fastscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a million ints or doubles with <code>FastWriter</code> and with a
+ * <code>PrintWriter</code> to an output which discards the bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriterBenchmark {
+
+    private static final int VALUES = 1_000_000;
+
+    private final int[] ints = new int[VALUES];
+    private final double[] doubles = new double[VALUES];
+
+    /* counts the bytes written so that the output is not dead code */
+    private static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < VALUES; i++) {
+            ints[i] = random.nextInt();
+            doubles[i] = random.nextInt(1_000_000) / 100.0;
+        }
+    }
+
+    @Benchmark
+    public long writeInt() throws IOException {
+        CountingStream out = new CountingStream();
+        FastWriter writer = new FastWriter(out);
+        for (int value : ints) writer.writeInt(value).writeByte(' ');
+        writer.close();
+        return out.count;
+    }
+
+    @Benchmark
+    public long writeInts() throws IOException {
+        CountingStream out = new CountingStream();
+        FastWriter writer = new FastWriter(out);
+        writer.writeInts(ints, 0, VALUES, ' ');
+        writer.close();
+        return out.count;
+    }
+
+    @Benchmark
+    public long writeDouble() throws IOException {
+        CountingStream out = new CountingStream();
+        FastWriter writer = new FastWriter(out);
+        for (double value : doubles) writer.writeDouble(value).writeByte(' ');
+        writer.close();
+        return out.count;
+    }
+
+    @Benchmark
+    public long printWriterInt() {
+        CountingStream out = new CountingStream();
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        for (int value : ints) {
+            writer.print(value);
+            writer.print(' ');
+        }
+        writer.close();
+        return out.count;
+    }
+
+    @Benchmark
+    public long printWriterDouble() {
+        CountingStream out = new CountingStream();
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        for (double value : doubles) {
+            writer.print(value);
+            writer.print(' ');
+        }
+        writer.close();
+        return out.count;
+    }
+}